@@ -13,6 +13,10 @@ public abstract class Algorithm {
         
     }
 
+    // for implementations which keep their nodes somewhere other than 'array'
+    protected Algorithm() {
+    }
+
     protected void union(int firstNode, int secondNode) {
     }
 
@@ -20,6 +24,31 @@ public abstract class Algorithm {
         return firstNode == secondNode;
     }
 
+    // bulk versions of union and connected for feeding large batches of pairs.
+    // the plain algorithms are not thread safe so these simply loop, no
+    // faster than calling union or connected for each pair. only
+    // ConcurrentWeightedQU overrides them to use every core, so a large
+    // import (tens of millions of edges) should be fed to one of those
+    protected void unionAll(int[] from, int[] to) {
+        checkBatch(from.length, to.length, to.length);
+        for (int i = 0; i < from.length; i++) {
+            union(from[i], to[i]);
+        }
+    }
+
+    protected void connectedAll(int[] first, int[] second, boolean[] out) {
+        checkBatch(first.length, second.length, out.length);
+        for (int i = 0; i < first.length; i++) {
+            out[i] = connected(first[i], second[i]);
+        }
+    }
+
+    protected static void checkBatch(int first, int second, int out) {
+        if (first != second || first != out) {
+            throw new IllegalArgumentException("batch arrays differ in length: " + first + ", " + second + ", " + out);
+        }
+    }
+
     protected int[] get() {
         return array;
     }
@@ -0,0 +1,194 @@
+package DynamicConnectivity;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+public class BatchRunner {
+
+    // non-interactive counterpart of Main.logic. reads one operation per line:
+    //     u <p> <q>    make a union between p and q
+    //     c <p> <q>    test for a connection between p and q
+    // and writes one line, 1 (connected) or 0 (not connected), per test.
+
+    // the input is parsed straight out of a byte buffer rather than through
+    // a Scanner, and runs of the same operation are handed to the algorithm
+    // through unionAll / connectedAll a batch at a time.
+
+    private static final int READ_BUFFER = 1 << 20;
+    private static final int BATCH = 1 << 16;
+    private static final int SMALL_BATCH = 1 << 10;
+
+    private final Algorithm alg;
+    private final OutputStream out;
+
+    private final int[] first = new int[BATCH];
+    private final int[] second = new int[BATCH];
+    private final boolean[] answers = new boolean[BATCH];
+    private char pendingOp;
+    private int pending;
+
+    // parser state, carried over between buffer refills
+    private int field;
+    private int value;
+    private boolean inToken;
+    private char op;
+    private long line;
+
+    public BatchRunner(Algorithm alg, OutputStream out) {
+        this.alg = alg;
+        this.out = new BufferedOutputStream(out, 1 << 16);
+    }
+
+    // usage: <algorithm> <size> [operations file], reading standard input when no file is given
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("expected: algorithm size [file]");
+        }
+
+        Algorithm alg = Main.algorithm(args[0]).apply(Integer.parseInt(args[1]));
+        BatchRunner runner = new BatchRunner(alg, System.out);
+
+        if (args.length > 2) {
+            try (FileChannel in = FileChannel.open(Paths.get(args[2]))) {
+                runner.run(in);
+            }
+        } else {
+            runner.run(Channels.newChannel(System.in));
+        }
+    }
+
+    public void run(ReadableByteChannel in) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER);
+        field = 0;
+        inToken = false;
+        line = 1;
+
+        while (in.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                accept(buffer.get());
+            }
+            buffer.clear();
+        }
+
+        // the last line may have no line break of its own
+        accept((byte) '\n');
+
+        flush();
+        out.flush();
+    }
+
+    private void accept(byte b) throws IOException {
+
+        if (b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+            if (inToken) {
+                if (field == 1) {
+                    first[pending] = value;
+                } else if (field == 2) {
+                    second[pending] = value;
+                }
+                field++;
+                inToken = false;
+            }
+            if (b == '\n') {
+                endOfLine();
+            }
+
+        } else if (field == 0) {
+            // only the first letter of the operation counts
+            if (!inToken) {
+                op = Character.toLowerCase((char) b);
+                inToken = true;
+            }
+
+        } else {
+            if (b < '0' || b > '9' || field > 2) {
+                throw new IllegalArgumentException("expected an operation and two nodes on line " + line);
+            }
+            if (!inToken) {
+                value = 0;
+                inToken = true;
+            }
+            if (value > (Integer.MAX_VALUE - (b - '0')) / 10) {
+                throw new IllegalArgumentException("node number too large on line " + line);
+            }
+            value = value * 10 + (b - '0');
+        }
+    }
+
+    private void endOfLine() throws IOException {
+        if (field == 3) {
+            if (op != 'u' && op != 'c') {
+                throw new IllegalArgumentException("unknown operation '" + op + "' on line " + line);
+            }
+            if (op != pendingOp) {
+                // this line's nodes are already sitting just past the batch being flushed
+                int p = first[pending], q = second[pending];
+                flush();
+                first[0] = p;
+                second[0] = q;
+                pendingOp = op;
+            }
+            if (++pending == BATCH) {
+                flush();
+            }
+
+        } else if (field != 0) {
+            throw new IllegalArgumentException("expected an operation and two nodes on line " + line);
+        }
+        field = 0;
+        line++;
+    }
+
+    // hand the batch waiting in first / second to the algorithm
+    private void flush() throws IOException {
+        if (pending == 0) {
+            return;
+        }
+
+        if (pending < SMALL_BATCH) {
+            // not worth copying into exact length arrays for the bulk methods
+            for (int i = 0; i < pending; i++) {
+                if (pendingOp == 'u') {
+                    alg.union(first[i], second[i]);
+                } else {
+                    answers[i] = alg.connected(first[i], second[i]);
+                }
+            }
+
+        } else if (pending < BATCH) {
+            bulk(Arrays.copyOf(first, pending), Arrays.copyOf(second, pending), new boolean[pending]);
+
+        } else {
+            bulk(first, second, answers);
+        }
+
+        if (pendingOp == 'c') {
+            for (int i = 0; i < pending; i++) {
+                out.write(answers[i] ? '1' : '0');
+                out.write('\n');
+            }
+        }
+        pending = 0;
+    }
+
+    private void bulk(int[] from, int[] to, boolean[] result) {
+        if (pendingOp == 'u') {
+            alg.unionAll(from, to);
+
+        } else {
+            alg.connectedAll(from, to, result);
+            if (result != answers) {
+                System.arraycopy(result, 0, answers, 0, result.length);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+package DynamicConnectivity;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+public class Benchmark {
+
+    // a repeatable timing harness for every Algorithm, giving ops/sec and
+    // bytes allocated per op for each combination of:
+    //   - N, the number of nodes
+    //   - the fraction of operations which are unions (the rest are connection tests)
+    //   - a random sequence of pairs, or an adversarial one which unions
+    //     (i, i + 1) in order and builds the tallest possible trees
+    //   - a cold cache (the caches flushed, by streaming over a buffer larger
+    //     than any last level cache, just before the operations start) or a
+    //     warm one (the instance and workload left in cache from being built).
+    //     both are the best of several runs, after the JIT has settled
+
+    // usage: Benchmark [ops] [union ratio] [N...]
+    // e.g. 'Benchmark 2000 0.5 1000000' compares the two quick finds at 1M nodes,
+    // where QuickFind's full-array relabel on every union dominates
+
+    private static final String[] NAMES = {"QuickFind", "WeightedQuickFind", "QuickUnion", "QuickUnionCompression",
+        "WeightedQU", "WeightedQUCompression", "RankedQU", "PersistentQU", "ConcurrentWeightedQU"};
+
+    private static final int WARMUP = 5;
+    private static final int MEASURED = 5;
+
+    // streamed over before each cold run; larger than the last level cache of current CPUs
+    private static final int EVICT_BYTES = 256 << 20;
+    private static final int CACHE_LINE = 64;
+    private static byte[] evict;
+
+    // the results of the connection tests end up here so they cannot be optimised away
+    private static volatile boolean sink;
+
+    public static void main(String[] args) {
+        int ops = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        double unionRatio = args.length > 1 ? Double.parseDouble(args[1]) : 0.5;
+        int[] sizes = {1000, 10000, 100000};
+        if (args.length > 2) {
+            sizes = new int[args.length - 2];
+            for (int i = 2; i < args.length; i++) {
+                sizes[i - 2] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.println("algorithm,n,union ratio,sequence,cache,ops/sec,bytes/op");
+
+        for (int n : sizes) {
+            for (boolean adversarial : new boolean[]{false, true}) {
+                Workload work = new Workload(n, ops, unionRatio, adversarial, 42);
+
+                for (String name : NAMES) {
+                    IntFunction<Algorithm> factory = Main.algorithm(name);
+
+                    for (int i = 0; i < WARMUP; i++) {
+                        run(factory, work, false);
+                    }
+                    Result cold = best(factory, work, true);
+                    Result warm = best(factory, work, false);
+
+                    report(name, n, unionRatio, adversarial, "cold", cold, ops);
+                    report(name, n, unionRatio, adversarial, "warm", warm, ops);
+                }
+            }
+        }
+    }
+
+    /**
+     * a pre-generated list of operations, so that generating random numbers
+     * is not part of what gets timed. the same workload is replayed against
+     * every algorithm.
+     */
+    protected static class Workload {
+
+        final int n;
+        final boolean[] isUnion;
+        final int[] first, second;
+
+        Workload(int n, int ops, double unionRatio, boolean adversarial, long seed) {
+            this.n = n;
+            Random r = new Random(seed);
+            isUnion = new boolean[ops];
+            first = new int[ops];
+            second = new int[ops];
+            int chain = 0;
+
+            for (int i = 0; i < ops; i++) {
+                isUnion[i] = r.nextDouble() < unionRatio;
+
+                if (adversarial && isUnion[i]) {
+                    first[i] = chain % n;
+                    second[i] = (chain + 1) % n;
+                    chain++;
+
+                } else if (adversarial) {
+                    // always ask about the deepest node of the chain
+                    first[i] = 0;
+                    second[i] = r.nextInt(n);
+
+                } else {
+                    first[i] = r.nextInt(n);
+                    second[i] = r.nextInt(n);
+                }
+            }
+        }
+
+    }
+
+    private static class Result {
+
+        final long nanos;
+        final long bytes;
+
+        Result(long nanos, long bytes) {
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+    }
+
+    private static Result best(IntFunction<Algorithm> factory, Workload work, boolean coldCache) {
+        Result best = null;
+        for (int i = 0; i < MEASURED; i++) {
+            Result next = run(factory, work, coldCache);
+            if (best == null || next.nanos < best.nanos) {
+                best = next;
+            }
+        }
+        return best;
+    }
+
+    // the instance is built outside the timed section; only the operations are measured
+    private static Result run(IntFunction<Algorithm> factory, Workload work, boolean coldCache) {
+        Algorithm alg = factory.apply(work.n);
+        boolean answers = false;
+
+        if (coldCache) {
+            evictCaches();
+        }
+
+        long bytes = allocatedBytes();
+        long t = System.nanoTime();
+
+        for (int i = 0; i < work.isUnion.length; i++) {
+            if (work.isUnion[i]) {
+                alg.union(work.first[i], work.second[i]);
+            } else {
+                answers ^= alg.connected(work.first[i], work.second[i]);
+            }
+        }
+
+        long nanos = System.nanoTime() - t;
+        bytes = allocatedBytes() - bytes;
+
+        sink = answers;
+        return new Result(nanos, bytes);
+    }
+
+    private static void report(String name, int n, double unionRatio, boolean adversarial, String cache, Result result, int ops) {
+        System.out.println(String.format("%s,%d,%.2f,%s,%s,%.0f,%.2f", name, n, unionRatio,
+                adversarial ? "adversarial" : "random", cache,
+                ops * 1e9 / Math.max(1, result.nanos), result.bytes / (double) ops));
+    }
+
+    // write to every cache line of a buffer larger than the caches, pushing
+    // out the lines of the instance and workload about to be timed
+    private static void evictCaches() {
+        if (evict == null) {
+            evict = new byte[EVICT_BYTES];
+        }
+        byte total = 0;
+        for (int i = 0; i < evict.length; i += CACHE_LINE) {
+            total += ++evict[i];
+        }
+        sink ^= total == 0;
+    }
+
+    // bytes allocated so far by this thread, or zero where the JVM cannot tell us
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+}
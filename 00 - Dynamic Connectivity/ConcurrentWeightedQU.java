@@ -0,0 +1,185 @@
+package DynamicConnectivity;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class ConcurrentWeightedQU extends Algorithm {
+
+    // lock-free version of the weighted quick union with compression,
+    // safe to share between any number of threads without a global lock.
+    // each node is a single long: rank in the high 32 bits and parent in
+    // the low 32 bits, so that a CAS on a root checks that it is still a
+    // root AND still has the rank the link decision was made with.
+    // (two separate int arrays cannot be checked in one CAS, which would
+    // let two threads link a pair of roots underneath each other)
+
+    // roots are linked by rank, ties broken by index, and finds use path
+    // halving with a CAS that is simply dropped if another thread got there first
+
+    // batches smaller than this are not worth splitting between workers
+    private static final int BATCH_GRAIN = 1 << 14;
+
+    private final AtomicLongArray nodes;
+
+    public ConcurrentWeightedQU(int size) {
+        nodes = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            nodes.set(i, i);
+        }
+    }
+
+    @Override
+    public void union(int first, int second) {
+
+        while (true) {
+            int leftRoot = root(first);
+            int rightRoot = root(second);
+
+            if (leftRoot == rightRoot) {
+                return;
+            }
+
+            long left = nodes.get(leftRoot);
+            long right = nodes.get(rightRoot);
+
+            // a root may have been linked since root() found it, start again
+            if (parent(left) != leftRoot || parent(right) != rightRoot) {
+                continue;
+            }
+
+            int leftRank = rank(left);
+            int rightRank = rank(right);
+
+            // always link the lower (rank, index) underneath the higher
+            if (leftRank > rightRank || (leftRank == rightRank && leftRoot > rightRoot)) {
+                int swap = leftRoot;
+                leftRoot = rightRoot;
+                rightRoot = swap;
+                leftRank = rank(right);
+                rightRank = rank(left);
+            }
+
+            if (!nodes.compareAndSet(leftRoot, pack(leftRank, leftRoot), pack(leftRank, rightRoot))) {
+                continue;
+            }
+
+            // equal ranks: the new root grows by one. losing this CAS only
+            // means another thread already changed the root, which is harmless
+            if (leftRank == rightRank) {
+                nodes.compareAndSet(rightRoot, pack(rightRank, rightRoot), pack(rightRank + 1, rightRoot));
+            }
+            return;
+        }
+    }
+
+    @Override
+    protected boolean connected(int first, int second) {
+
+        while (true) {
+            first = root(first);
+            second = root(second);
+
+            if (first == second) {
+                return true;
+            }
+
+            // only a definite answer if 'first' is still a root after finding 'second'
+            if (parent(nodes.get(first)) == first) {
+                return false;
+            }
+        }
+    }
+
+    protected int root(int query) {
+
+        while (true) {
+            long node = nodes.get(query);
+            int parent = parent(node);
+
+            if (parent == query) {
+                return query;
+            }
+
+            int grandparent = parent(nodes.get(parent));
+            if (parent != grandparent) {
+                nodes.compareAndSet(query, node, pack(rank(node), grandparent));
+            }
+            query = grandparent;
+        }
+    }
+
+    // union is lock free, so a batch is simply split across the fork-join pool
+    @Override
+    protected void unionAll(int[] from, int[] to) {
+        checkBatch(from.length, to.length, to.length);
+        ForkJoinPool.commonPool().invoke(new Batch(from, to, null, 0, from.length));
+    }
+
+    @Override
+    protected void connectedAll(int[] first, int[] second, boolean[] out) {
+        checkBatch(first.length, second.length, out.length);
+        ForkJoinPool.commonPool().invoke(new Batch(first, second, out, 0, first.length));
+    }
+
+    /**
+     * splits a range of pairs in half until small enough to run directly.
+     * with no output array the pairs are unioned, otherwise they are tested
+     */
+    private class Batch extends RecursiveAction {
+
+        private final int[] first, second;
+        private final boolean[] out;
+        private final int from, to;
+
+        private Batch(int[] first, int[] second, boolean[] out, int from, int to) {
+            this.first = first;
+            this.second = second;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BATCH_GRAIN) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Batch(first, second, out, from, middle), new Batch(first, second, out, middle, to));
+
+            } else if (out == null) {
+                for (int i = from; i < to; i++) {
+                    union(first[i], second[i]);
+                }
+
+            } else {
+                for (int i = from; i < to; i++) {
+                    out[i] = connected(first[i], second[i]);
+                }
+            }
+        }
+
+    }
+
+    // a snapshot of the parent of every node, only consistent while no other thread is working
+    @Override
+    protected int[] get() {
+        int[] parents = new int[nodes.length()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = parent(nodes.get(i));
+        }
+        return parents;
+    }
+
+    private static long pack(int rank, int parent) {
+        return ((long) rank << 32) | parent;
+    }
+
+    private static int parent(long node) {
+        return (int) node;
+    }
+
+    private static int rank(long node) {
+        return (int) (node >>> 32);
+    }
+
+}
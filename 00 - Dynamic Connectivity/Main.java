@@ -1,8 +1,11 @@
 package DynamicConnectivity;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
 
 public class Main {
 
@@ -10,7 +13,13 @@ public class Main {
     private static Algorithm alg;
     private static int size;
 
-    public static void main(String[] args) {
+    // with arguments, runs a batch of operations instead of the menu. see BatchRunner
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            BatchRunner.main(args);
+            return;
+        }
+
         size = 5000000;
         alg = new WeightedQUCompression(size);
         logic();
@@ -26,6 +35,9 @@ public class Main {
                     + "\nconnection test (C)"
                     + "\nmake N unions & connection tests (M)"
                     + "\ndo " + size + " U&C tests (T)"
+                    + "\nparallel U&C tests on 1.." + Runtime.getRuntime().availableProcessors() + " threads (P)"
+                    + "\nmemory report for the weighted algorithms (S)"
+                    + "\ncomponent count and sizes (K)"
                     + "\ndisplay the connection arrays (D)"
                     + "\nexit (X)\n");
             char command = scanner.nextLine().trim().toLowerCase().charAt(0);
@@ -67,6 +79,21 @@ public class Main {
                 randomUnionsAndConnections(size);
                 System.out.println("work took: " + (System.currentTimeMillis() - t) + " miliseconds");
 
+            } else if (command == 'p') {
+                System.out.println("how many test rounds per thread count? (array size is " + size + ")");
+                int tries = Integer.parseInt(scanner.nextLine());
+                parallelUnionsAndConnections(tries);
+
+            } else if (command == 'k' && alg instanceof WeightedQU) {
+                WeightedQU weighted = (WeightedQU) alg;
+                System.out.println("size of which node's component? (maximum is " + size + ")");
+                int node = Integer.parseInt(scanner.nextLine());
+                System.out.println(weighted.count() + " components, largest has " + weighted.largestComponent()
+                        + " nodes, the component of node " + node + " has " + weighted.componentSize(node));
+
+            } else if (command == 's') {
+                memoryReport();
+
             } else if (command == 'd' && size < 500) {
                 printArray(alg);
             }
@@ -88,6 +115,95 @@ public class Main {
         }
     }
 
+    // runs the same total number of U&C rounds on a fresh concurrent algorithm
+    // for each thread count, doubling up to the number of processors
+    private static void parallelUnionsAndConnections(int tries) {
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        for (int threads = 1; threads <= processors; threads = (threads == processors) ? threads + 1 : Math.min(threads * 2, processors)) {
+            ConcurrentWeightedQU concurrent = new ConcurrentWeightedQU(size);
+            Thread[] workers = new Thread[threads];
+            int share = tries / threads;
+
+            for (int w = 0; w < threads; w++) {
+                workers[w] = new Thread(() -> {
+                    ThreadLocalRandom r = ThreadLocalRandom.current();
+                    for (int i = 0; i < share; i++) {
+                        concurrent.union(r.nextInt(size), r.nextInt(size));
+                        concurrent.connected(r.nextInt(size), r.nextInt(size));
+                    }
+                });
+            }
+
+            long t = System.nanoTime();
+            for (Thread worker : workers) {
+                worker.start();
+            }
+            for (Thread worker : workers) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            long nanos = System.nanoTime() - t;
+
+            long rounds = (long) share * threads;
+            System.out.println(String.format("%2d threads: %,d rounds in %d miliseconds, %,.0f rounds/sec, %,.0f rounds/sec per thread",
+                    threads, rounds, nanos / 1000000, rounds * 1e9 / nanos, rounds * 1e9 / nanos / threads));
+        }
+    }
+
+    // heap used by a freshly built instance of each weighted algorithm at the current size
+    private static void memoryReport() {
+        String[] names = {"WeightedQU", "WeightedQUCompression", "RankedQU"};
+
+        for (String name : names) {
+            long before = usedMemory();
+            Algorithm instance = name.equals("RankedQU") ? new RankedQU(size)
+                    : name.equals("WeightedQU") ? new WeightedQU(size) : new WeightedQUCompression(size);
+            long used = usedMemory() - before;
+
+            System.out.println(String.format("%-22s %,14d bytes, %5.2f bytes/node",
+                    name, used, used / (double) instance.get().length));
+        }
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // the constructor of the algorithm with the given class name
+    protected static IntFunction<Algorithm> algorithm(String name) {
+        switch (name) {
+            case "QuickFind":
+                return QuickFind::new;
+            case "WeightedQuickFind":
+                return WeightedQuickFind::new;
+            case "QuickUnion":
+                return QuickUnion::new;
+            case "QuickUnionCompression":
+                return QuickUnionCompression::new;
+            case "WeightedQU":
+                return WeightedQU::new;
+            case "WeightedQUCompression":
+                return WeightedQUCompression::new;
+            case "RankedQU":
+                return RankedQU::new;
+            case "PersistentQU":
+                return PersistentQU::new;
+            case "ConcurrentWeightedQU":
+                return ConcurrentWeightedQU::new;
+            default:
+                throw new IllegalArgumentException("no such algorithm: " + name);
+        }
+    }
+
     private static int[] getPair() {
         int[] pair = new int[2];
 
@@ -0,0 +1,183 @@
+package DynamicConnectivity;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class MappedWeightedQU extends Algorithm implements Closeable {
+
+    // weighted (by rank) quick union with path halving, where the parents
+    // and ranks live in a memory mapped file instead of on the heap. this
+    // allows universes of up to Integer.MAX_VALUE nodes, and a forest that
+    // is still there after a restart.
+
+    // file layout: an 8 byte header holding the size, then 4 bytes of
+    // parent per node, then 1 byte of rank per node. a parent is stored
+    // XOR'd with its own index, so the zeroes of a freshly grown file
+    // already mean 'every node is its own root' -- creating or reopening
+    // a forest never has to touch every node.
+
+    // the file is mapped in 1GB segments, as one mapping cannot exceed 2GB.
+    // both the header and the segment size are multiples of 4 so that an
+    // int never straddles two segments.
+
+    private static final int HEADER = 8;
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int size;
+    private final long rankOffset;
+
+    // creates a new forest of 'size' nodes in the file, or reopens the
+    // forest already there. an existing file of a different size is refused
+    public MappedWeightedQU(Path file, int size) throws IOException {
+        if (size < 0) {
+            throw new IllegalArgumentException("size cannot be negative: " + size);
+        }
+
+        this.size = size;
+        rankOffset = HEADER + 4L * size;
+        long length = rankOffset + size;
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        // the channel is closed again if anything below fails, mapping included
+        try {
+            long existing = channel.size();
+
+            if (existing != 0 && existing != length) {
+                throw new IllegalArgumentException("file " + file + " holds a forest of a different size");
+            }
+
+            int count = (int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            segments = new MappedByteBuffer[count];
+            for (int s = 0; s < count; s++) {
+                long start = (long) s << SEGMENT_SHIFT;
+                segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(SEGMENT_MASK + 1, length - start));
+            }
+
+            if (existing == 0) {
+                segments[0].putLong(0, size);
+            } else if (segments[0].getLong(0) != size) {
+                throw new IllegalArgumentException("file " + file + " has a corrupt header");
+            }
+
+        } catch (IOException | RuntimeException e) {
+            try {
+                channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void union(int first, int second) {
+        checkNode(first);
+        checkNode(second);
+
+        int leftRoot = root(first);
+        int rightRoot = root(second);
+
+        if (leftRoot != rightRoot) {
+
+            int leftRank = rank(leftRoot);
+            int rightRank = rank(rightRoot);
+
+            if (leftRank < rightRank) {
+                setParent(leftRoot, rightRoot);
+
+            } else if (leftRank > rightRank) {
+                setParent(rightRoot, leftRoot);
+
+            } else {
+                setParent(leftRoot, rightRoot);
+                setRank(rightRoot, rightRank + 1);
+            }
+        }
+    }
+
+    @Override
+    protected boolean connected(int first, int second) {
+        checkNode(first);
+        checkNode(second);
+        return root(first) == root(second);
+    }
+
+    protected int root(int query) {
+        checkNode(query);
+        int parent = parent(query);
+
+        while (parent != query) {
+            int grandparent = parent(parent);
+            if (grandparent != parent) {
+                setParent(query, grandparent);
+            }
+            query = grandparent;
+            parent = parent(query);
+        }
+        return query;
+    }
+
+    // the parent of every node. only sensible for small forests
+    @Override
+    protected int[] get() {
+        int[] parents = new int[size];
+        for (int i = 0; i < size; i++) {
+            parents[i] = parent(i);
+        }
+        return parents;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // write any changes still held by the operating system out to the file
+    public void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    // an out of range node would read and write other nodes' bytes in the
+    // file, rather than fail as an array index would
+    private void checkNode(int node) {
+        if (node < 0 || node >= size) {
+            throw new IllegalArgumentException("node " + node + " outside of 0.." + (size - 1));
+        }
+    }
+
+    private int parent(int node) {
+        long offset = HEADER + 4L * node;
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getInt((int) (offset & SEGMENT_MASK)) ^ node;
+    }
+
+    private void setParent(int node, int parent) {
+        long offset = HEADER + 4L * node;
+        segments[(int) (offset >>> SEGMENT_SHIFT)].putInt((int) (offset & SEGMENT_MASK), parent ^ node);
+    }
+
+    private int rank(int node) {
+        long offset = rankOffset + node;
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].get((int) (offset & SEGMENT_MASK));
+    }
+
+    private void setRank(int node, int rank) {
+        long offset = rankOffset + node;
+        segments[(int) (offset >>> SEGMENT_SHIFT)].put((int) (offset & SEGMENT_MASK), (byte) rank);
+    }
+
+}
@@ -0,0 +1,185 @@
+package DynamicConnectivity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class OfflineConnectivity {
+
+    // dynamic connectivity WITH removals, answered offline: a log of add,
+    // remove and query operations is recorded first, then solved in one go.
+
+    // each edge is alive for a range of queries. those ranges are stored on
+    // a segment tree over the query indices, then the tree is walked depth
+    // first with a PersistentQU: an edge is unioned on the way into the
+    // nodes covering its range and rolled back on the way out, so at each
+    // leaf exactly the edges alive for that query are in the union-find.
+    // every edge is unioned O(log q) times. a PersistentQU cannot compress
+    // paths, so each of those unions and each query's find costs O(log n):
+    // O(m log q log n + q log n) overall for m edges, within
+    // O((m + q) log q log n), instead of rebuilding after every removal.
+
+    private final int size;
+
+    // edges currently added, by key, with the query index each copy was added at
+    private final HashMap<Long, ArrayList<Integer>> open = new HashMap<>();
+
+    // finished edge lifetimes, each covering queries [from, to)
+    private int[] edgeFirst = new int[16], edgeSecond = new int[16], edgeFrom = new int[16], edgeTo = new int[16];
+    private int edges;
+
+    private int[] queryFirst = new int[16], querySecond = new int[16];
+    private int queries;
+
+    // edges stored at each segment tree node, as pairs of nodes
+    private int[][] treeEdges;
+    private int[] treeEdgeCount;
+
+    public OfflineConnectivity(int size) {
+        this.size = size;
+    }
+
+    public void add(int first, int second) {
+        checkNode(first);
+        checkNode(second);
+        open.computeIfAbsent(key(first, second), k -> new ArrayList<>()).add(queries);
+    }
+
+    // removes one copy of an edge previously added
+    public void remove(int first, int second) {
+        long key = key(first, second);
+        ArrayList<Integer> starts = open.get(key);
+
+        if (starts == null) {
+            throw new IllegalArgumentException("no edge between " + first + " and " + second + " to remove");
+        }
+
+        int from = starts.remove(starts.size() - 1);
+        if (starts.isEmpty()) {
+            open.remove(key);
+        }
+        addLifetime(first, second, from, queries);
+    }
+
+    // records a connection test, returning its index in the answers from solve
+    public int query(int first, int second) {
+        checkNode(first);
+        checkNode(second);
+
+        if (queries == queryFirst.length) {
+            queryFirst = Arrays.copyOf(queryFirst, queries * 2);
+            querySecond = Arrays.copyOf(querySecond, queries * 2);
+        }
+        queryFirst[queries] = first;
+        querySecond[queries] = second;
+        return queries++;
+    }
+
+    // answers every query recorded so far, in order
+    public boolean[] solve() {
+        boolean[] answers = new boolean[queries];
+        if (queries == 0) {
+            return answers;
+        }
+
+        treeEdges = new int[4 * queries][];
+        treeEdgeCount = new int[4 * queries];
+
+        for (int e = 0; e < edges; e++) {
+            insertEdge(1, 0, queries, edgeFirst[e], edgeSecond[e], edgeFrom[e], edgeTo[e]);
+        }
+
+        // edges never removed stay alive until the last query
+        for (Map.Entry<Long, ArrayList<Integer>> entry : open.entrySet()) {
+            int first = (int) (entry.getKey() >>> 32);
+            int second = (int) (long) entry.getKey();
+            for (int from : entry.getValue()) {
+                if (from < queries) {
+                    insertEdge(1, 0, queries, first, second, from, queries);
+                }
+            }
+        }
+
+        walk(1, 0, queries, new PersistentQU(size), answers);
+
+        treeEdges = null;
+        treeEdgeCount = null;
+        return answers;
+    }
+
+    private void walk(int node, int lo, int hi, PersistentQU uf, boolean[] answers) {
+        int version = uf.version();
+
+        int[] pairs = treeEdges[node];
+        for (int i = 0; i < treeEdgeCount[node]; i += 2) {
+            uf.union(pairs[i], pairs[i + 1]);
+        }
+
+        if (hi - lo == 1) {
+            answers[lo] = uf.connected(queryFirst[lo], querySecond[lo]);
+
+        } else {
+            int middle = (lo + hi) >>> 1;
+            walk(2 * node, lo, middle, uf, answers);
+            walk(2 * node + 1, middle, hi, uf, answers);
+        }
+
+        uf.rollback(version);
+    }
+
+    // stores the edge on the fewest tree nodes which exactly cover [from, to)
+    private void insertEdge(int node, int lo, int hi, int first, int second, int from, int to) {
+        if (to <= lo || hi <= from) {
+            return;
+        }
+
+        if (from <= lo && hi <= to) {
+            int count = treeEdgeCount[node];
+            if (treeEdges[node] == null) {
+                treeEdges[node] = new int[4];
+            } else if (count == treeEdges[node].length) {
+                treeEdges[node] = Arrays.copyOf(treeEdges[node], count * 2);
+            }
+            treeEdges[node][count] = first;
+            treeEdges[node][count + 1] = second;
+            treeEdgeCount[node] = count + 2;
+            return;
+        }
+
+        int middle = (lo + hi) >>> 1;
+        insertEdge(2 * node, lo, middle, first, second, from, to);
+        insertEdge(2 * node + 1, middle, hi, first, second, from, to);
+    }
+
+    private void addLifetime(int first, int second, int from, int to) {
+        // an edge removed before any query saw it changes nothing
+        if (from == to) {
+            return;
+        }
+
+        if (edges == edgeFirst.length) {
+            edgeFirst = Arrays.copyOf(edgeFirst, edges * 2);
+            edgeSecond = Arrays.copyOf(edgeSecond, edges * 2);
+            edgeFrom = Arrays.copyOf(edgeFrom, edges * 2);
+            edgeTo = Arrays.copyOf(edgeTo, edges * 2);
+        }
+        edgeFirst[edges] = first;
+        edgeSecond[edges] = second;
+        edgeFrom[edges] = from;
+        edgeTo[edges] = to;
+        edges++;
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= size) {
+            throw new IllegalArgumentException("node " + node + " outside of 0.." + (size - 1));
+        }
+    }
+
+    // the same key for an edge whichever way round it is given
+    private static long key(int first, int second) {
+        return ((long) Math.min(first, second) << 32) | Math.max(first, second);
+    }
+
+}
@@ -0,0 +1,126 @@
+package DynamicConnectivity;
+
+public class PersistentQU extends Algorithm {
+
+    // union by rank with NO path compression, where every link is stamped
+    // with the version it was made at. each call to union is one version,
+    // whether or not it joins anything, so version k is 'after the first k
+    // unions'.
+
+    // a node always links after all of its own children did, so the stamps
+    // only grow on the way up a tree: following parents while the stamp is
+    // <= k finds the root the node had at version k, in O(log n).
+
+    // the links made are also kept on a stack, so the structure can be
+    // rolled back to an earlier version by unlinking the newest first.
+
+    private static final int UNLINKED = Integer.MAX_VALUE;
+
+    private byte[] rank;
+    private int[] linkedAt;
+
+    // nodes in the order they were linked, stored as ~node when the link also raised a rank
+    private int[] links;
+    private int linkCount;
+
+    private int version;
+
+    public PersistentQU(int size) {
+        super(size);
+
+        rank = new byte[size];
+        linkedAt = new int[size];
+        for (int i = 0; i < size; i++) {
+            linkedAt[i] = UNLINKED;
+        }
+
+        // every link removes one root, so there can never be more than size - 1
+        links = new int[Math.max(0, size - 1)];
+    }
+
+    @Override
+    public void union(int first, int second) {
+
+        version++;
+        int leftRoot = root(first);
+        int rightRoot = root(second);
+
+        if (leftRoot != rightRoot) {
+
+            if (rank[leftRoot] > rank[rightRoot]) {
+                int swap = leftRoot;
+                leftRoot = rightRoot;
+                rightRoot = swap;
+            }
+
+            array[leftRoot] = rightRoot;
+            linkedAt[leftRoot] = version;
+
+            if (rank[leftRoot] == rank[rightRoot]) {
+                rank[rightRoot]++;
+                links[linkCount++] = ~leftRoot;
+            } else {
+                links[linkCount++] = leftRoot;
+            }
+        }
+    }
+
+    @Override
+    protected boolean connected(int first, int second) {
+        return root(first) == root(second);
+    }
+
+    protected int root(int query) {
+        while (array[query] != query) {
+            query = array[query];
+        }
+        return query;
+    }
+
+    // were the two nodes connected after the first 'version' unions?
+    protected boolean connectedAt(int first, int second, int version) {
+        checkVersion(version);
+        return rootAt(first, version) == rootAt(second, version);
+    }
+
+    protected int rootAt(int query, int version) {
+        while (array[query] != query && linkedAt[query] <= version) {
+            query = array[query];
+        }
+        return query;
+    }
+
+    // number of unions made so far
+    protected int version() {
+        return version;
+    }
+
+    // undo every union made after the given version
+    protected void rollback(int version) {
+        checkVersion(version);
+
+        while (linkCount > 0 && linkedAt[node(links[linkCount - 1])] > version) {
+            int link = links[--linkCount];
+            int node = node(link);
+
+            if (link < 0) {
+                rank[array[node]]--;
+            }
+            array[node] = node;
+            linkedAt[node] = UNLINKED;
+        }
+
+        this.version = version;
+    }
+
+    private void checkVersion(int version) {
+        if (version < 0 || version > this.version) {
+            throw new IllegalArgumentException("no such version " + version + ", current version is " + this.version);
+        }
+    }
+
+    private static int node(int link) {
+        return link < 0 ? ~link : link;
+    }
+
+}
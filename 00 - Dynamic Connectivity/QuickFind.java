@@ -23,7 +23,7 @@ public class QuickFind extends Algorithm {
             int a = array[firstNode];
             int b = array[secondNode];
 
-            for (int i : array) {
+            for (int i = 0; i < array.length; i++) {
                 if (array[i] == a) {
                     array[i] = b;
                 }
@@ -0,0 +1,52 @@
+package DynamicConnectivity;
+
+public class RankedQU extends QuickUnion {
+
+    // union by rank instead of by size. a rank is at most log2 of the
+    // number of nodes, so it always fits in a byte, and the whole structure
+    // costs ~5 bytes per node rather than the 8 of WeightedQU.
+    // finds use path splitting: every node on the path is pointed at its
+    // grandparent, roughly halving the path's length in a single pass.
+    // repeated finds flatten it further, for the same amortized bound as
+    // full path compression.
+
+    private byte[] rank;
+
+    public RankedQU(int size) {
+        super(size);
+        rank = new byte[size];
+    }
+
+    @Override
+    public void union(int first, int second) {
+
+        int leftRoot = root(first);
+        int rightRoot = root(second);
+
+        if (leftRoot != rightRoot) {
+
+            if (rank[leftRoot] < rank[rightRoot]) {
+                array[leftRoot] = rightRoot;
+
+            } else if (rank[leftRoot] > rank[rightRoot]) {
+                array[rightRoot] = leftRoot;
+
+            } else {
+                array[leftRoot] = rightRoot;
+                rank[rightRoot]++;
+            }
+        }
+    }
+
+    @Override
+    protected int root(int query) {
+
+        while (array[query] != query) {
+            int parent = array[query];
+            array[query] = array[parent];
+            query = parent;
+        }
+        return query;
+    }
+
+}
@@ -6,6 +6,10 @@ public class WeightedQU extends QuickUnion {
 
     private int[] nodeSize;
 
+    // kept up to date by union, so neither needs a scan of the array
+    private int components;
+    private int largest;
+
     public WeightedQU(int size) {
         super(size);
         
@@ -13,6 +17,9 @@ public class WeightedQU extends QuickUnion {
         for (int i = 0; i < size; i++) {
             nodeSize[i] = 1;
         }
+
+        components = size;
+        largest = size > 0 ? 1 : 0;
     }
 
     @Override
@@ -31,9 +38,28 @@ public class WeightedQU extends QuickUnion {
                 nodeSize[leftRoot] += nodeSize[rightRoot];
                 array[rightRoot] = array[leftRoot];
             }
+
+            components--;
+            largest = Math.max(largest, Math.max(nodeSize[leftRoot], nodeSize[rightRoot]));
         }
     }
 
+    // number of separate components
+    protected int count() {
+        return components;
+    }
+
+    // number of nodes in the component containing the given node
+    protected int componentSize(int node) {
+        return nodeSize[root(node)];
+    }
+
+    // number of nodes in the biggest component. components only ever grow,
+    // so the newly merged component is the only candidate after each union
+    protected int largestComponent() {
+        return largest;
+    }
+
     @Override
     protected boolean connected(int first, int second) {
         return root(first) == root(second);
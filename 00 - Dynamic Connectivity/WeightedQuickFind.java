@@ -0,0 +1,61 @@
+package DynamicConnectivity;
+
+public class WeightedQuickFind extends Algorithm {
+
+    // quick find that only relabels the smaller of the two components.
+    // each component is a circular linked list of its members through
+    // 'next', so a union walks just the smaller list instead of the whole
+    // array. a node is relabelled only when its component at least doubles,
+    // so at most log2(n) times: O(log n) amortized per union, and connected
+    // stays a single comparison.
+
+    private int[] next;
+    private int[] componentSize;
+
+    public WeightedQuickFind(int size) {
+        super(size);
+
+        next = new int[size];
+        componentSize = new int[size];
+        for (int i = 0; i < size; i++) {
+            next[i] = i;
+            componentSize[i] = 1;
+        }
+    }
+
+    @Override
+    protected void union(int firstNode, int secondNode) {
+
+        int a = array[firstNode];
+        int b = array[secondNode];
+
+        if (a != b) {
+
+            // always relabel the members of the smaller component, a
+            if (componentSize[a] > componentSize[b]) {
+                int swap = a;
+                a = b;
+                b = swap;
+            }
+
+            int i = a;
+            do {
+                array[i] = b;
+                i = next[i];
+            } while (i != a);
+
+            // swapping one link in each list joins the two circles into one
+            int swap = next[a];
+            next[a] = next[b];
+            next[b] = swap;
+
+            componentSize[b] += componentSize[a];
+        }
+    }
+
+    @Override
+    protected boolean connected(int first, int second) {
+        return array[first] == array[second];
+    }
+
+}
@@ -0,0 +1,293 @@
+
+/**
+ * the shape of a percolation system: how many sites it has, which sites
+ * neighbour each other, and which sites make up its top and bottom faces.
+ *
+ *
+ * sites are numbered 0 to sites() - 1 in a single flat range, so that an
+ * engine such as LatticePercolation can keep everything in primitive
+ * arrays indexed by site, whatever the shape or number of dimensions.
+ *
+ */
+public abstract class Lattice {
+
+    // number of sites
+    public abstract int sites();
+
+    // the most neighbours any one site can have
+    public abstract int maxNeighbours();
+
+    // writes the neighbours of 'site' to the start of 'out', returning how many there are
+    public abstract int neighbours(int site, int[] out);
+
+    // is the site on the top face (where flow enters)?
+    public abstract boolean isTop(int site);
+
+    // is the site on the bottom face (where flow leaves)?
+    public abstract boolean isBottom(int site);
+
+    /**
+     * how the sites of a 2D grid are numbered, i.e. laid out in the arrays of
+     * an engine. neighbours which are close together in the arrays are more
+     * likely to share a cache line:
+     *
+     * COLUMN_MAJOR: down each column in turn, the same as Percolation.
+     * ROW_MAJOR: along each row in turn.
+     * BLOCKED: square tiles of 64 by 64 sites, each tile stored whole in
+     * row major order, tiles taken along each row of tiles in turn. all four
+     * neighbours of most sites then sit within the same 16KB of an int array.
+     */
+    public enum Layout {
+        COLUMN_MAJOR, ROW_MAJOR, BLOCKED
+    }
+
+    // n by n grid, 4 neighbours: above, below, left, right. sites are
+    // numbered down each column in turn, the same as Percolation
+    public static Lattice square(int n) {
+        return new Square(n, false, Layout.COLUMN_MAJOR);
+    }
+
+    // n by n grid, 4 neighbours, with sites numbered in the given layout
+    public static Lattice square(int n, Layout layout) {
+        return new Square(n, false, layout);
+    }
+
+    // n by n grid, 8 neighbours: the square neighbours and the four diagonals
+    public static Lattice squareWithDiagonals(int n) {
+        return new Square(n, true, Layout.COLUMN_MAJOR);
+    }
+
+    // n by n grid of hexagonal cells, 6 neighbours. each row is shifted half
+    // a cell to the right of the one above, so that a cell touches two cells
+    // in each of the rows above and below it
+    public static Lattice hexagonal(int n) {
+        return new Hexagonal(n);
+    }
+
+    // n by n by n cube, 6 neighbours, flowing from the top layer to the bottom layer
+    public static Lattice cubic(int n) {
+        return new Cubic(n);
+    }
+
+    private static int checkSize(int n, int dimensions) {
+        if (n < 1) {
+            throw new IllegalArgumentException("int 'n' at initialisation cannot be less than one");
+        }
+        if (Math.pow(n, dimensions) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("a lattice of side " + n + " has too many sites to index");
+        }
+        return n;
+    }
+
+    private static class Square extends Lattice {
+
+        private static final int TILE = 64;
+
+        private final int n;
+        private final boolean diagonals;
+        private final Layout layout;
+
+        Square(int n, boolean diagonals, Layout layout) {
+            this.n = checkSize(n, 2);
+            this.diagonals = diagonals;
+            this.layout = layout;
+        }
+
+        @Override
+        public int sites() {
+            return n * n;
+        }
+
+        @Override
+        public int maxNeighbours() {
+            return diagonals ? 8 : 4;
+        }
+
+        @Override
+        public int neighbours(int site, int[] out) {
+            int row = row(site);
+            int col = col(site);
+            int count = 0;
+
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if ((dr == 0 && dc == 0) || (!diagonals && dr != 0 && dc != 0)) {
+                        continue;
+                    }
+                    int r = row + dr;
+                    int c = col + dc;
+                    if (r >= 0 && r < n && c >= 0 && c < n) {
+                        out[count++] = index(r, c);
+                    }
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isTop(int site) {
+            return row(site) == 0;
+        }
+
+        @Override
+        public boolean isBottom(int site) {
+            return row(site) == n - 1;
+        }
+
+        // site number of the 0-based (row, col)
+        private int index(int row, int col) {
+            switch (layout) {
+                case ROW_MAJOR:
+                    return row * n + col;
+                case BLOCKED:
+                    // tiles on the bottom and right edges may be cut short
+                    int tileRow = row / TILE;
+                    int tileCol = col / TILE;
+                    int height = Math.min(TILE, n - tileRow * TILE);
+                    int width = Math.min(TILE, n - tileCol * TILE);
+                    return tileRow * TILE * n + tileCol * TILE * height + (row - tileRow * TILE) * width + (col - tileCol * TILE);
+                default:
+                    return row + n * col;
+            }
+        }
+
+        private int row(int site) {
+            switch (layout) {
+                case ROW_MAJOR:
+                    return site / n;
+                case BLOCKED:
+                    int tileRow = site / (TILE * n);
+                    int within = site - tileRow * TILE * n;
+                    int height = Math.min(TILE, n - tileRow * TILE);
+                    int tileCol = within / (TILE * height);
+                    int width = Math.min(TILE, n - tileCol * TILE);
+                    return tileRow * TILE + (within - tileCol * TILE * height) / width;
+                default:
+                    return site % n;
+            }
+        }
+
+        private int col(int site) {
+            switch (layout) {
+                case ROW_MAJOR:
+                    return site % n;
+                case BLOCKED:
+                    int tileRow = site / (TILE * n);
+                    int within = site - tileRow * TILE * n;
+                    int height = Math.min(TILE, n - tileRow * TILE);
+                    int tileCol = within / (TILE * height);
+                    int width = Math.min(TILE, n - tileCol * TILE);
+                    return tileCol * TILE + (within - tileCol * TILE * height) % width;
+                default:
+                    return site / n;
+            }
+        }
+    }
+
+    private static class Hexagonal extends Lattice {
+
+        private static final int[] ROW = {-1, -1, 0, 0, 1, 1};
+        private static final int[] COL = {0, 1, -1, 1, -1, 0};
+
+        private final int n;
+
+        Hexagonal(int n) {
+            this.n = checkSize(n, 2);
+        }
+
+        @Override
+        public int sites() {
+            return n * n;
+        }
+
+        @Override
+        public int maxNeighbours() {
+            return 6;
+        }
+
+        @Override
+        public int neighbours(int site, int[] out) {
+            int row = site / n;
+            int col = site % n;
+            int count = 0;
+
+            for (int i = 0; i < ROW.length; i++) {
+                int r = row + ROW[i];
+                int c = col + COL[i];
+                if (r >= 0 && r < n && c >= 0 && c < n) {
+                    out[count++] = r * n + c;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isTop(int site) {
+            return site < n;
+        }
+
+        @Override
+        public boolean isBottom(int site) {
+            return site >= n * (n - 1);
+        }
+    }
+
+    private static class Cubic extends Lattice {
+
+        private final int n;
+        private final int layer;
+
+        Cubic(int n) {
+            this.n = checkSize(n, 3);
+            layer = n * n;
+        }
+
+        @Override
+        public int sites() {
+            return layer * n;
+        }
+
+        @Override
+        public int maxNeighbours() {
+            return 6;
+        }
+
+        @Override
+        public int neighbours(int site, int[] out) {
+            int depth = site / layer;
+            int row = site % layer / n;
+            int col = site % n;
+            int count = 0;
+
+            if (depth > 0) {
+                out[count++] = site - layer;
+            }
+            if (depth < n - 1) {
+                out[count++] = site + layer;
+            }
+            if (row > 0) {
+                out[count++] = site - n;
+            }
+            if (row < n - 1) {
+                out[count++] = site + n;
+            }
+            if (col > 0) {
+                out[count++] = site - 1;
+            }
+            if (col < n - 1) {
+                out[count++] = site + 1;
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isTop(int site) {
+            return site < layer;
+        }
+
+        @Override
+        public boolean isBottom(int site) {
+            return site >= layer * (n - 1);
+        }
+    }
+}
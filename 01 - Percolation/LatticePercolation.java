@@ -0,0 +1,113 @@
+
+import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+
+/**
+ * percolation on any Lattice: 2D grids with other neighbourhoods, 3D cubes,
+ * and so on.
+ *
+ *
+ * works exactly as SingleUFPercolation: one union table, with each root
+ * carrying 'touches top' and 'touches bottom' flags in place of virtual
+ * sites, so there is no backwash. open sites are a bitset, and everything
+ * is indexed by the lattice's flat site number, so a 300^3 cube needs
+ * around 10 bytes per site.
+ *
+ */
+public class LatticePercolation {
+
+    private static final byte TOP = 1;
+    private static final byte BOTTOM = 2;
+
+    private final Lattice lattice;
+    private final WeightedQuickUnionUF unionTable;
+    private final int[] neighbours;
+    private long[] sites; // one bit per site, 64 sites to a word
+    private byte[] flags;
+    private boolean percolates;
+    private int openSites;
+
+    public LatticePercolation(Lattice lattice) {
+        this.lattice = lattice;
+        unionTable = new WeightedQuickUnionUF(lattice.sites());
+        neighbours = new int[lattice.maxNeighbours()];
+
+        // all sites blocked and touching neither top nor bottom to begin with
+        sites = new long[(lattice.sites() + 63) / 64];
+        flags = new byte[lattice.sites()];
+    }
+
+    // opens the site if it is not open already, and makes unions with its open neighbours
+    public void open(int site) {
+        checkSite(site);
+        openIndex(site);
+    }
+
+    // as open, with no range check, returning whether the system percolates
+    boolean openIndex(int site) {
+
+        if (!isOpenIndex(site)) {
+            sites[site >>> 6] |= 1L << site;
+            openSites++;
+
+            byte state = 0;
+            if (lattice.isTop(site)) {
+                state |= TOP;
+            }
+            if (lattice.isBottom(site)) {
+                state |= BOTTOM;
+            }
+
+            int count = lattice.neighbours(site, neighbours);
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if (isOpenIndex(neighbour)) {
+                    state |= flags[unionTable.find(neighbour)];
+                    unionTable.union(site, neighbour);
+                }
+            }
+
+            flags[unionTable.find(site)] = state;
+
+            if (state == (TOP | BOTTOM)) {
+                percolates = true;
+            }
+        }
+        return percolates;
+    }
+
+    // is the site open?
+    public boolean isOpen(int site) {
+        checkSite(site);
+        return isOpenIndex(site);
+    }
+
+    // is the site full? i.e. does its component reach the top face
+    public boolean isFull(int site) {
+        checkSite(site);
+        return isOpenIndex(site) && (flags[unionTable.find(site)] & TOP) != 0;
+    }
+
+    // returns the number of open sites
+    public int numberOfOpenSites() {
+        return openSites;
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return percolates;
+    }
+
+    public Lattice lattice() {
+        return lattice;
+    }
+
+    private boolean isOpenIndex(int site) {
+        return (sites[site >>> 6] & (1L << site)) != 0;
+    }
+
+    private void checkSite(int site) {
+        if (site < 0 || site >= lattice.sites()) {
+            throw new IllegalArgumentException("site " + site + " out of range");
+        }
+    }
+}
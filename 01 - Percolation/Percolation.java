@@ -22,7 +22,7 @@ public class Percolation {
     private final int n;
     private final int virtualTop;
     private final int virtualBottom;
-    private boolean[] sites;
+    private long[] sites; // one bit per site, 64 sites to a word
     private boolean percolates;
     private int openSites;
 
@@ -46,14 +46,9 @@ public class Percolation {
         virtualTop = n * n;
         virtualBottom = n * n;
 
-        // a simple array of boolean values to track open/blocked states of sites
-        // assume blocked == false, open == true.
-        sites = new boolean[n * n];
-
-        // set all sites blocked initially
-        for (int s = 0; s < sites.length; s++) {
-            sites[s] = false;
-        }
+        // a bitset to track open/blocked states of sites
+        // assume blocked == 0, open == 1. all sites start blocked
+        sites = new long[(n * n + 63) / 64];
         openSites = 0; // counter for stats object
 
         percolates = false; // made true when system passes percolation test
@@ -67,11 +62,12 @@ public class Percolation {
             throw new IllegalArgumentException("coordinates out of range opening site at " + row + ", " + col);
         }
 
-        if (!isOpen(row, col)) {
+        int site = getArrayIndex(row, col);
+
+        if (!isOpen(site)) {
 
-            // get an index to assist opening the correct site in the array and increment number of open sites
-            int site = getArrayIndex(row, col);
-            sites[site] = true;
+            // open the site in the array and increment number of open sites
+            sites[site >>> 6] |= 1L << site;
             openSites++;
 
             // cleaner checking algorithm begins here
@@ -115,11 +111,11 @@ public class Percolation {
         if (!coordsAreValid(row, col)) {
             throw new IllegalArgumentException("invalid coordinates checking site at " + row + ", " + col);
         }
-        return sites[getArrayIndex(row, col)];
+        return isOpen(getArrayIndex(row, col));
     }
 
     private boolean isOpen(int index) {
-        return sites[index];
+        return (sites[index >>> 6] & (1L << index)) != 0;
     }
 
     // is the site (row, col) full? 
@@ -0,0 +1,132 @@
+
+import edu.princeton.cs.algs4.StdOut;
+import java.util.SplittableRandom;
+
+/**
+ * times single trials of the percolation engines against each other, and
+ * reports the heap each one needs.
+ *
+ * every engine opens exactly the same random sequence of sites for a given
+ * n, so the only difference being measured is the engine itself.
+ *
+ * then times seeded PercolationStats trials on a square lattice under each
+ * site layout, to show the effect of the layout on cache behaviour.
+ *
+ * usage: PercolationBenchmark [n...], by default 2000, 3000 and 4000
+ */
+public class PercolationBenchmark {
+
+    private static final int ROUNDS = 3;
+    private static final int LAYOUT_TRIALS = 4;
+
+    public static void main(String[] args) {
+        int[] sizes = {2000, 3000, 4000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        StdOut.println("engine,n,best ms,bytes/site,threshold");
+
+        for (int n : sizes) {
+            report("Percolation", n, () -> {
+                Percolation p = new Percolation(n);
+                return new Engine() {
+                    public void open(int row, int col) {
+                        p.open(row, col);
+                    }
+
+                    public boolean percolates() {
+                        return p.percolates();
+                    }
+
+                    public int openSites() {
+                        return p.numberOfOpenSites();
+                    }
+                };
+            });
+
+            report("SingleUFPercolation", n, () -> {
+                SingleUFPercolation p = new SingleUFPercolation(n);
+                return new Engine() {
+                    public void open(int row, int col) {
+                        p.open(row, col);
+                    }
+
+                    public boolean percolates() {
+                        return p.percolates();
+                    }
+
+                    public int openSites() {
+                        return p.numberOfOpenSites();
+                    }
+                };
+            });
+        }
+
+        StdOut.println();
+        StdOut.println("layout,n,trials/sec,mean");
+
+        for (int n : sizes) {
+            for (Lattice.Layout layout : Lattice.Layout.values()) {
+                Lattice lattice = Lattice.square(n, layout);
+
+                // one untimed trial first, to warm up
+                new PercolationStats(lattice, 1, n, 1);
+
+                long t = System.nanoTime();
+                PercolationStats stats = new PercolationStats(lattice, LAYOUT_TRIALS, n, 1);
+                long nanos = System.nanoTime() - t;
+
+                StdOut.println(String.format("%s,%d,%.3f,%.4f", layout, n, LAYOUT_TRIALS * 1e9 / nanos, stats.mean()));
+            }
+        }
+    }
+
+    // the operations used by a trial, common to every engine
+    private interface Engine {
+
+        void open(int row, int col);
+
+        boolean percolates();
+
+        int openSites();
+    }
+
+    private interface EngineFactory {
+
+        Engine create();
+    }
+
+    private static void report(String name, int n, EngineFactory factory) {
+        long best = Long.MAX_VALUE;
+        long bytes = 0;
+        double threshold = 0;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = usedMemory();
+            Engine engine = factory.create();
+            bytes = usedMemory() - before;
+
+            SplittableRandom random = new SplittableRandom(n);
+            long t = System.nanoTime();
+            while (!engine.percolates()) {
+                engine.open(random.nextInt(n) + 1, random.nextInt(n) + 1);
+            }
+            best = Math.min(best, System.nanoTime() - t);
+            threshold = engine.openSites() / (double) n / n;
+        }
+
+        StdOut.println(String.format("%s,%d,%d,%.2f,%.4f", name, n, best / 1000000, bytes / (double) n / n, threshold));
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
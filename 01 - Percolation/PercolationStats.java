@@ -1,16 +1,29 @@
 
 import edu.princeton.cs.algs4.StdOut;
-import edu.princeton.cs.algs4.StdStats;
 import edu.princeton.cs.algs4.StdRandom;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 public class PercolationStats {
 
+    // trials are handed to the worker threads this many at a time
+    private static final int CHUNK = 16;
+
+    // chunks run in parallel before their results are merged and reported,
+    // when running a fixed number of trials. toPrecision runs one chunk per
+    // thread at a time instead, so as to compute few trials past its stopping point
+    private static final int ROUND = 64;
+
     private static int n;
     private static int T;
     private double mean;
     private double stddev;
     private double confidenceLo;
     private double confidenceHi;
+    private long trials;
 
     // perform a number of trials on an n-by-n system
     public PercolationStats(int n, int trials) {
@@ -20,9 +33,8 @@ public class PercolationStats {
             throw new IllegalArgumentException("input values cannot be zero or below");
         }
 
-        // set the array where individual results will be stored, 
-        // number of places determined by number of trials
-        double[] results = new double[trials];
+        // individual results are folded into running totals as they arrive
+        RunningStats results = new RunningStats();
 
         // run the tests
         for (int i = 0; i < trials; i++) {
@@ -36,21 +48,233 @@ public class PercolationStats {
             }
 
             // record number of open sites / total sites to results
-            results[i] = currentTrial.numberOfOpenSites() / (double) (n * n);
+            results.add(currentTrial.numberOfOpenSites() / (double) (n * n));
+        }
+
+        summarise(results);
+
+    }
+
+    // perform a number of trials on an n-by-n system, spread over a number of threads.
+    // every trial draws from its own random stream derived from the seed and the
+    // trial's number, so the results are the same whatever the number of threads
+    public PercolationStats(int n, int trials, long seed, int threads) {
+        this(n, trials, seed, threads, null);
+    }
+
+    // as above, also handing a copy of the running totals to 'progress' each
+    // time a round of trials completes, while the rest are still to run
+    public PercolationStats(int n, int trials, long seed, int threads, Consumer<RunningStats> progress) {
+        this(Lattice.square(n), trials, 0, seed, threads, progress);
+    }
+
+    // perform seeded trials, as above, on any shape of system. the threshold
+    // is the fraction of the lattice's sites open when it first percolates
+    public PercolationStats(Lattice lattice, int trials, long seed, int threads) {
+        this(lattice, trials, 0, seed, threads, null);
+    }
+
+    /**
+     * run seeded trials until the 95% confidence interval is no wider than
+     * 'width', i.e. until confidenceHi() - confidenceLo() <= width, rather
+     * than for a fixed number of trials. trials run in parallel rounds of one
+     * chunk per thread, but the interval is checked after every chunk of
+     * trials, in order, so the stopping point depends only on the seed and
+     * not on the number of threads.
+     */
+    public static PercolationStats toPrecision(int n, double width, long seed, int threads) {
+        return toPrecision(Lattice.square(n), width, seed, threads);
+    }
+
+    public static PercolationStats toPrecision(Lattice lattice, double width, long seed, int threads) {
+        if (!(width > 0)) {
+            throw new IllegalArgumentException("confidence interval width must be above zero");
+        }
+        return new PercolationStats(lattice, Integer.MAX_VALUE, width, seed, threads, null);
+    }
+
+    // runs up to maxTrials, stopping early once the interval is no wider than 'width' (if above zero)
+    private PercolationStats(Lattice lattice, int maxTrials, double width, long seed, int threads, Consumer<RunningStats> progress) {
+
+        if (maxTrials <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("input values cannot be zero or below");
+        }
+
+        RunningStats results = new RunningStats();
+
+        // a parallel stream started from inside a pool runs on that pool's threads
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            int start = 0;
+            int roundSize = width > 0 ? threads * CHUNK : ROUND * CHUNK;
+            boolean done = false;
+
+            while (start < maxTrials && !done) {
+                int end = (int) Math.min(maxTrials, (long) start + roundSize);
+
+                for (RunningStats chunk : round(pool, lattice, seed, start, end)) {
+                    results.merge(chunk);
+                    if (width > 0 && results.count() > 1 && results.confidenceHi() - results.confidenceLo() <= width) {
+                        done = true;
+                        break;
+                    }
+                }
+
+                // a copy, so the caller cannot change the final results
+                if (progress != null) {
+                    RunningStats copy = new RunningStats();
+                    copy.merge(results);
+                    progress.accept(copy);
+                }
+                start = end;
+            }
+
+        } finally {
+            pool.shutdown();
         }
 
-        mean = StdStats.mean(results);
-        stddev = StdStats.stddev(results);
-        confidenceLo = mean - 1.96 * stddev / Math.sqrt(trials);
-        confidenceHi = mean + 1.96 * stddev / Math.sqrt(trials);
+        summarise(results);
+    }
 
+    /**
+     * runs trials [from, to) as parallel chunks, returning each chunk's own
+     * totals in order. merging them in that order means the sum does not
+     * depend on which thread finished first.
+     */
+    private static RunningStats[] round(ForkJoinPool pool, Lattice lattice, long seed, int from, int to) {
+        RunningStats[] chunks = new RunningStats[(to - from + CHUNK - 1) / CHUNK];
+
+        try {
+            pool.submit(() -> IntStream.range(0, chunks.length).parallel().forEach(c -> {
+                int[] order = sites(lattice.sites());
+                RunningStats chunk = new RunningStats();
+                for (int i = from + c * CHUNK; i < Math.min(to, from + (c + 1) * CHUNK); i++) {
+                    chunk.add(trial(lattice, order, trialRandom(seed, i)));
+                }
+                chunks[c] = chunk;
+            })).get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while running trials", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("trial failed", e.getCause());
+        }
+
+        return chunks;
+    }
+
+    /**
+     * open the sites of a new system in a random order until it percolates,
+     * returning the fraction opened. the order is a Fisher-Yates shuffle of
+     * 'order' made one step at a time, so each opened site costs exactly one
+     * random number and no draw is wasted on a site already open. the array
+     * is shuffled in place and can be handed straight to the next trial, as
+     * shuffling any permutation gives a uniformly random one.
+     */
+    private static double trial(Lattice lattice, int[] order, SplittableRandom random) {
+        return trialSteps(lattice, order, random) / (double) lattice.sites();
+    }
+
+    // as trial, but returns the number of sites opened at the moment of percolation
+    private static int trialSteps(Lattice lattice, int[] order, SplittableRandom random) {
+        LatticePercolation currentTrial = new LatticePercolation(lattice);
+
+        for (int k = 0; ; k++) {
+            int swap = k + random.nextInt(order.length - k);
+            int site = order[swap];
+            order[swap] = order[k];
+            order[k] = site;
+
+            if (currentTrial.openIndex(site)) {
+                return k + 1;
+            }
+        }
+    }
+
+    /**
+     * the number of sites opened, in the given order, at the moment an n-by-n
+     * system first percolates. a single pass over 'order' building one union
+     * table, stopping at the exact step the top and bottom rows join.
+     */
+    public static int threshold(int n, int[] order) {
+        if (order.length != n * n) {
+            throw new IllegalArgumentException("an opening order must hold all " + n * n + " sites");
+        }
+
+        SingleUFPercolation system = new SingleUFPercolation(n);
+        for (int k = 0; k < order.length; k++) {
+            if (system.openIndex(order[k])) {
+                return k + 1;
+            }
+        }
+        throw new IllegalArgumentException("opening order does not open every site");
+    }
+
+    /**
+     * the percolation curve over a number of seeded trials: element k is the
+     * fraction of trials which percolated with k or fewer sites open, for k
+     * from 0 to n * n. trials match those of the seeded constructor.
+     */
+    public static double[] percolationCurve(int n, int trials, long seed) {
+        return percolationCurve(Lattice.square(n), trials, seed);
+    }
+
+    public static double[] percolationCurve(Lattice lattice, int trials, long seed) {
+        if (trials <= 0) {
+            throw new IllegalArgumentException("input values cannot be zero or below");
+        }
+
+        // how many trials percolated at exactly k open sites
+        long[] percolatedAt = new long[lattice.sites() + 1];
+        int[] order = null;
+        for (int i = 0; i < trials; i++) {
+            if (i % CHUNK == 0) {
+                order = sites(lattice.sites());
+            }
+            percolatedAt[trialSteps(lattice, order, trialRandom(seed, i))]++;
+        }
+
+        double[] curve = new double[lattice.sites() + 1];
+        long percolated = 0;
+        for (int k = 0; k < curve.length; k++) {
+            percolated += percolatedAt[k];
+            curve[k] = percolated / (double) trials;
+        }
+        return curve;
+    }
+
+    // every site index of a system, for shuffling into an opening order
+    private static int[] sites(int count) {
+        int[] order = new int[count];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    // an independent stream for each trial. the seed is scrambled before the
+    // trial number is added, and the sum scrambled again, so that neither
+    // neighbouring trials nor neighbouring seeds share a stream: with a plain
+    // seed + trial, trial i under seed s would replay trial i - 1 under s + 1
+    private static SplittableRandom trialRandom(long seed, int trial) {
+        long scrambled = new SplittableRandom(seed).nextLong() + trial;
+        return new SplittableRandom(new SplittableRandom(scrambled).nextLong());
+    }
+
+    private void summarise(RunningStats results) {
+        trials = results.count();
+        mean = results.mean();
+        stddev = results.stddev();
+        confidenceLo = results.confidenceLo();
+        confidenceHi = results.confidenceHi();
     }
 
     public static void main(String[] args) {
 
-        // check for two arguments at command line
-        if (args.length != 2) {
-            throw new IllegalArgumentException("expected two integers: n and T");
+        // check for two arguments at command line, optionally followed by a seed and a number of threads
+        if (args.length < 2 || args.length > 4) {
+            throw new IllegalArgumentException("expected two integers: n and T, then optionally a seed and a number of threads");
         }
 
         // attempt transfer arguments to relevant variables, else create exception
@@ -61,8 +285,14 @@ public class PercolationStats {
             System.out.println(e.getMessage());
         }
 
-        // create PercolationStats object with given values
-        PercolationStats stats = new PercolationStats(n, T);
+        // create PercolationStats object with given values, running in parallel when given a seed
+        PercolationStats stats;
+        if (args.length > 2) {
+            int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+            stats = new PercolationStats(n, T, Long.parseLong(args[2]), threads);
+        } else {
+            stats = new PercolationStats(n, T);
+        }
 
         // calculate stats after trials
         StdOut.println("mean = " + stats.mean);
@@ -91,4 +321,9 @@ public class PercolationStats {
         return confidenceHi;
     }
 
+    // number of trials actually run, which toPrecision decides for itself
+    public long trials() {
+        return trials;
+    }
+
 }
@@ -0,0 +1,173 @@
+
+import edu.princeton.cs.algs4.StdOut;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * runs PercolationStats over a range of grid sizes and prints a CSV table of
+ * n, T, seed, mean, stddev and the 95% confidence interval for each.
+ *
+ * grid sizes are shared out over a number of threads, largest first so
+ * that the longest jobs are not left until the end. each size runs single
+ * threaded from the same seed, which gives the same answer as any other
+ * number of threads.
+ *
+ * each finished point is appended to a cache file as a fixed size binary
+ * record, and points already in the cache are not run again, so a sweep
+ * that is interrupted or extended only does the missing work.
+ *
+ * usage: PercolationSweep from to step T seed cacheFile [threads]
+ */
+public class PercolationSweep {
+
+    // n, T, seed, mean, stddev, confidenceLo, confidenceHi
+    private static final int RECORD = 4 + 4 + 8 + 4 * 8;
+
+    private final File cacheFile;
+    private final Map<String, double[]> cache = new HashMap<>();
+    private DataOutputStream cacheOut;
+
+    public PercolationSweep(File cacheFile) throws IOException {
+        this.cacheFile = cacheFile;
+        readCache();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 6 || args.length > 7) {
+            throw new IllegalArgumentException("expected: from to step T seed cacheFile [threads]");
+        }
+
+        int from = Integer.parseInt(args[0]);
+        int to = Integer.parseInt(args[1]);
+        int step = Integer.parseInt(args[2]);
+        int trials = Integer.parseInt(args[3]);
+        long seed = Long.parseLong(args[4]);
+        int threads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+
+        if (from <= 0 || to < from || step <= 0) {
+            throw new IllegalArgumentException("expected a range of grid sizes above zero");
+        }
+
+        List<Integer> sizes = new ArrayList<>();
+        for (int n = from; n <= to; n += step) {
+            sizes.add(n);
+        }
+
+        PercolationSweep sweep = new PercolationSweep(new File(args[5]));
+        Map<Integer, double[]> results = sweep.run(sizes, trials, seed, threads);
+
+        StdOut.println("n,T,seed,mean,stddev,confidenceLo,confidenceHi");
+        for (int n : sizes) {
+            double[] r = results.get(n);
+            StdOut.println(n + "," + trials + "," + seed + "," + r[0] + "," + r[1] + "," + r[2] + "," + r[3]);
+        }
+    }
+
+    /**
+     * the results for every grid size, as {mean, stddev, confidenceLo,
+     * confidenceHi}, taken from the cache where possible.
+     */
+    public Map<Integer, double[]> run(List<Integer> sizes, int trials, long seed, int threads) throws IOException {
+        Map<Integer, double[]> results = new HashMap<>();
+        List<Integer> todo = new ArrayList<>();
+
+        for (int n : sizes) {
+            double[] cached = cache.get(key(n, trials, seed));
+            if (cached != null) {
+                results.put(n, cached);
+            } else if (!todo.contains(n)) {
+                todo.add(n);
+            }
+        }
+
+        // the largest grids take the longest, so start them first
+        todo.sort((a, b) -> Integer.compare(b, a));
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(cacheFile, true))) {
+            cacheOut = out;
+
+            List<Future<double[]>> futures = new ArrayList<>();
+            for (int n : todo) {
+                futures.add(pool.submit(() -> {
+                    PercolationStats stats = new PercolationStats(n, trials, seed, 1);
+                    double[] r = {stats.mean(), stats.stddev(), stats.confidenceLo(), stats.confidenceHi()};
+                    record(n, trials, seed, r);
+                    return r;
+                }));
+            }
+
+            for (int i = 0; i < todo.size(); i++) {
+                results.put(todo.get(i), futures.get(i).get());
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted during sweep", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("sweep failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+            cacheOut = null;
+        }
+
+        return results;
+    }
+
+    // append a finished point to the cache file straight away, so it survives an interruption
+    private synchronized void record(int n, int trials, long seed, double[] r) throws IOException {
+        cacheOut.writeInt(n);
+        cacheOut.writeInt(trials);
+        cacheOut.writeLong(seed);
+        for (double value : r) {
+            cacheOut.writeDouble(value);
+        }
+        cacheOut.flush();
+        cache.put(key(n, trials, seed), r);
+    }
+
+    private void readCache() throws IOException {
+        if (!cacheFile.exists()) {
+            return;
+        }
+
+        // a record cut short by an interruption is dropped, so that new records line up again
+        long complete = cacheFile.length() / RECORD * RECORD;
+        if (complete != cacheFile.length()) {
+            try (RandomAccessFile file = new RandomAccessFile(cacheFile, "rw")) {
+                file.setLength(complete);
+            }
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            for (long i = 0; i < complete / RECORD; i++) {
+                int n = in.readInt();
+                int trials = in.readInt();
+                long seed = in.readLong();
+                double[] r = new double[4];
+                for (int j = 0; j < r.length; j++) {
+                    r[j] = in.readDouble();
+                }
+                cache.put(key(n, trials, seed), r);
+            }
+        }
+    }
+
+    private static String key(int n, int trials, long seed) {
+        return n + "," + trials + "," + seed;
+    }
+}
@@ -0,0 +1,70 @@
+
+/**
+ * mean, standard deviation and 95% confidence interval of a stream of
+ * values, kept up to date one value at a time (Welford's method) in
+ * constant memory.
+ *
+ * two accumulators can be merged, so separate workers can each keep their
+ * own and combine them at the end. merging in the same order always gives
+ * the same result.
+ *
+ */
+public class RunningStats {
+
+    private long count;
+    private double mean;
+    private double m2; // sum of squared differences from the mean
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+    }
+
+    // add all the values seen by another accumulator to this one
+    public void merge(RunningStats other) {
+        if (other.count == 0) {
+            return;
+        }
+
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    // sample mean, NaN before any values are added
+    public double mean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    // sample standard deviation, NaN for fewer than two values
+    public double stddev() {
+        return count < 2 ? Double.NaN : Math.sqrt(m2 / (count - 1));
+    }
+
+    // low endpoint of 95% confidence interval
+    public double confidenceLo() {
+        return mean() - halfWidth();
+    }
+
+    // high endpoint of 95% confidence interval
+    public double confidenceHi() {
+        return mean() + halfWidth();
+    }
+
+    private double halfWidth() {
+        return 1.96 * stddev() / Math.sqrt(count);
+    }
+
+    @Override
+    public String toString() {
+        return count + " trials, mean = " + mean() + ", 95% confidence interval = [" + confidenceLo() + ", " + confidenceHi() + "]";
+    }
+}
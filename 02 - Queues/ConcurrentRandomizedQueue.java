@@ -0,0 +1,396 @@
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * a RandomizedQueue which can be shared between threads.
+ *
+ *
+ * rather than one array behind one lock, items are spread over a number of
+ * stripes, each a small randomized queue of its own with its own lock.
+ * enqueue adds to a random stripe, so the stripes stay close to the same
+ * size. threads only contend when they land on the same stripe at the same
+ * moment, and every random number comes from the calling thread's
+ * ThreadLocalRandom rather than the shared StdRandom.
+ *
+ * dequeue and sample choose by rejection: a random stripe and a random
+ * slot below the size of the largest stripe, trying again if that slot is
+ * past the end of the chosen stripe. every item then has exactly the same
+ * chance however uneven the stripes are, at a cost of one retry or so on
+ * average while the stripes stay close to the same size. the choice is
+ * exact while no other thread is changing the queue; a stripe which grows
+ * between reading the sizes and taking its lock is only sampled up to its
+ * old size for that one call.
+ *
+ */
+public class ConcurrentRandomizedQueue<Item> implements Iterable<Item> {
+
+    private final Stripe<Item>[] stripes;
+
+    // about two stripes per processor: the power of two at or above twice the
+    // number of processors, and never fewer than eight
+    public ConcurrentRandomizedQueue() {
+        this(Integer.highestOneBit(Math.max(4, Runtime.getRuntime().availableProcessors() * 2 - 1)) * 2);
+    }
+
+    // the number of stripes is rounded up to a power of two
+    public ConcurrentRandomizedQueue(int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("need at least one stripe");
+        }
+
+        int count = Integer.highestOneBit(stripeCount);
+        if (count < stripeCount) {
+            count *= 2;
+        }
+
+        stripes = (Stripe<Item>[]) new Stripe[count];
+        for (int s = 0; s < count; s++) {
+            stripes[s] = new Stripe<>();
+        }
+    }
+
+    /**
+     * one independent randomized queue: an array with the items packed at
+     * the front, grown and shrunk as in RandomizedQueue. all access is
+     * synchronized on the stripe itself.
+     */
+    private static class Stripe<Item> {
+
+        private Item[] items = (Item[]) new Object[2];
+        private volatile int size;
+
+        private void add(Item item) {
+            if (size == items.length) {
+                resize(items.length * 2);
+            }
+            items[size] = item;
+            size = size + 1;
+        }
+
+        private Item remove(int index) {
+            Item item = items[index];
+            int last = size - 1;
+            items[index] = items[last];
+            items[last] = null;
+            size = last;
+
+            if (items.length > 2 && last == items.length / 4) {
+                resize(items.length / 2);
+            }
+            return item;
+        }
+
+        private void resize(int capacity) {
+            Item[] resized = (Item[]) new Object[capacity];
+            System.arraycopy(items, 0, resized, 0, size);
+            items = resized;
+        }
+    }
+
+    // is the randomized queue empty? only a snapshot while other threads are working
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // return the number of items, only a snapshot while other threads are working
+    public int size() {
+        int total = 0;
+        for (Stripe<Item> stripe : stripes) {
+            total += stripe.size;
+        }
+        return total;
+    }
+
+    // add the item
+    public void enqueue(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("attempting to add a null item");
+        }
+
+        Stripe<Item> stripe = stripes[ThreadLocalRandom.current().nextInt(stripes.length)];
+        synchronized (stripe) {
+            stripe.add(item);
+        }
+    }
+
+    // remove and return a random item
+    public Item dequeue() {
+        return choose(true);
+    }
+
+    // return a random item (but do not remove it)
+    public Item sample() {
+        return choose(false);
+    }
+
+    // a uniformly random item, by rejection over the slots of equally sized stripes
+    private Item choose(boolean remove) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        while (true) {
+            int largest = 0;
+            for (Stripe<Item> stripe : stripes) {
+                largest = Math.max(largest, stripe.size);
+            }
+            if (largest == 0) {
+                throw new NoSuchElementException("collection is empty");
+            }
+
+            Stripe<Item> stripe = stripes[random.nextInt(stripes.length)];
+            int slot = random.nextInt(largest);
+
+            // reject slots past the end without taking the lock
+            if (slot >= stripe.size) {
+                continue;
+            }
+
+            synchronized (stripe) {
+                if (slot < stripe.size) {
+                    return remove ? stripe.remove(slot) : stripe.items[slot];
+                }
+            }
+        }
+    }
+
+    /**
+     * an iterator over a snapshot of the items in uniformly random order.
+     * each stripe is copied under its own lock, so the snapshot is only
+     * exact while no other thread is changing the queue.
+     */
+    @Override
+    public Iterator<Item> iterator() {
+        Object[] snapshot = new Object[size()];
+        int count = 0;
+
+        for (Stripe<Item> stripe : stripes) {
+            synchronized (stripe) {
+                if (count + stripe.size > snapshot.length) {
+                    snapshot = Arrays.copyOf(snapshot, Math.max(snapshot.length * 2, count + stripe.size));
+                }
+                System.arraycopy(stripe.items, 0, snapshot, count, stripe.size);
+                count += stripe.size;
+            }
+        }
+
+        // fisher-yates shuffle of the snapshot
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Object swap = snapshot[i];
+            snapshot[i] = snapshot[j];
+            snapshot[j] = swap;
+        }
+
+        Object[] items = snapshot;
+        int length = count;
+
+        return new Iterator<Item>() {
+
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < length;
+            }
+
+            @Override
+            public Item next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("outside of collection range");
+                }
+                return (Item) items[position++];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("removing elements during iteration not implemented");
+            }
+        };
+    }
+
+    /**
+     * unit testing, then statistical tests of uniformity and a scaling
+     * benchmark against a RandomizedQueue shared through synchronized blocks.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentRandomizedQueue<String> q = new ConcurrentRandomizedQueue<>();
+
+        q.enqueue("dog");
+        q.enqueue("cat");
+        q.enqueue("mouse");
+        q.enqueue("horse");
+        q.enqueue("rat");
+
+        System.out.println("nodes: " + q.size());
+        System.out.println(q.sample());
+        System.out.println(q.dequeue());
+        System.out.println("list is empty? " + q.isEmpty());
+
+        for (String s : q) {
+            System.out.println(s);
+        }
+
+        unevenUniformity(10, 8, 1000000);
+        unevenUniformity(1000, 8, 2000000);
+        filledUniformity(1000, 2000000);
+        concurrentUniformity(16, 1000000);
+
+        int ops = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= Math.max(4, processors); threads *= 2) {
+            System.out.println(String.format("%2d threads: striped %,.0f ops/sec, synchronized RandomizedQueue %,.0f ops/sec",
+                    threads, striped(ops, threads), locked(ops, threads)));
+        }
+    }
+
+    /**
+     * chi-squared tests of how often each item is chosen from one fixed queue
+     * against a uniform spread. with k - 1 degrees of freedom the statistic
+     * should be close to k - 1, and only exceed k - 1 + 3 * sqrt(2 * (k - 1))
+     * about once in 700 runs.
+     *
+     * the tests hold the queue in a single state throughout, since averaging
+     * over many randomly filled queues would come out uniform however biased
+     * each one of them was.
+     */
+    private static void unevenUniformity(int k, int stripeCount, int trials) {
+        ConcurrentRandomizedQueue<Integer> q = new ConcurrentRandomizedQueue<>(stripeCount);
+
+        // item i goes to the stripe given by the trailing zeros of i + 1, so
+        // half the items share the first stripe and the last stripes are empty
+        for (int i = 0; i < k; i++) {
+            q.stripes[home(i, stripeCount)].add(i);
+        }
+
+        long[] sampled = new long[k];
+        for (int t = 0; t < trials; t++) {
+            sampled[q.sample()]++;
+        }
+        report("sample of " + k + " on uneven stripes", sampled);
+
+        // put each dequeued item back on its own stripe, so the membership of
+        // every stripe is the same for each dequeue
+        long[] dequeued = new long[k];
+        for (int t = 0; t < trials; t++) {
+            int item = q.dequeue();
+            dequeued[item]++;
+            q.stripes[home(item, stripeCount)].add(item);
+        }
+        report("dequeue of " + k + " on uneven stripes", dequeued);
+    }
+
+    private static int home(int item, int stripeCount) {
+        return Math.min(Integer.numberOfTrailingZeros(item + 1), stripeCount - 1);
+    }
+
+    // one queue filled through enqueue, then sampled many times
+    private static void filledUniformity(int k, int trials) {
+        ConcurrentRandomizedQueue<Integer> q = new ConcurrentRandomizedQueue<>();
+        for (int i = 0; i < k; i++) {
+            q.enqueue(i);
+        }
+
+        long[] counts = new long[k];
+        for (int t = 0; t < trials; t++) {
+            counts[q.sample()]++;
+        }
+        report("sample of " + k + " enqueued", counts);
+    }
+
+    // one queue filled by two threads at once, then sampled many times
+    private static void concurrentUniformity(int k, int trials) throws InterruptedException {
+        ConcurrentRandomizedQueue<Integer> q = new ConcurrentRandomizedQueue<>(4);
+        Thread[] writers = new Thread[2];
+        for (int w = 0; w < writers.length; w++) {
+            int offset = w;
+            writers[w] = new Thread(() -> {
+                for (int i = offset; i < k; i += writers.length) {
+                    q.enqueue(i);
+                }
+            });
+        }
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        long[] counts = new long[k];
+        for (int t = 0; t < trials; t++) {
+            counts[q.sample()]++;
+        }
+        report("sample of " + k + " from two writers", counts);
+    }
+
+    private static void report(String name, long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+
+        double expected = total / (double) counts.length;
+        double chiSquared = 0;
+        for (long count : counts) {
+            chiSquared += (count - expected) * (count - expected) / expected;
+        }
+
+        int freedom = counts.length - 1;
+        double limit = freedom + 3 * Math.sqrt(2.0 * freedom);
+        System.out.println(String.format("%s: chi-squared %.1f with %d degrees of freedom, %s",
+                name, chiSquared, freedom, chiSquared < limit ? "uniform" : "NOT UNIFORM (limit " + limit + ")"));
+    }
+
+    // each thread enqueues and dequeues in turn, so the queue stays near its starting size
+    private static double striped(int ops, int threads) throws InterruptedException {
+        ConcurrentRandomizedQueue<Integer> q = new ConcurrentRandomizedQueue<>();
+        for (int i = 0; i < 100000; i++) {
+            q.enqueue(i);
+        }
+
+        return time(threads, () -> {
+            for (int i = 0; i < ops / threads / 2; i++) {
+                q.enqueue(i);
+                q.dequeue();
+            }
+        }, ops);
+    }
+
+    private static double locked(int ops, int threads) throws InterruptedException {
+        RandomizedQueue<Integer> q = new RandomizedQueue<>();
+        for (int i = 0; i < 100000; i++) {
+            q.enqueue(i);
+        }
+
+        return time(threads, () -> {
+            for (int i = 0; i < ops / threads / 2; i++) {
+                synchronized (q) {
+                    q.enqueue(i);
+                }
+                synchronized (q) {
+                    q.dequeue();
+                }
+            }
+        }, ops);
+    }
+
+    // ops per second with the work run on the given number of threads at once
+    private static double time(int threads, Runnable work, int ops) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        for (int w = 0; w < threads; w++) {
+            workers[w] = new Thread(work);
+        }
+
+        long t = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return ops * 1e9 / (System.nanoTime() - t);
+    }
+}
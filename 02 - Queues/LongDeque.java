@@ -0,0 +1,182 @@
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * a Deque of long values, held directly in a long ring buffer. the same
+ * structure as Deque, but with no boxing and no objects allocated per item:
+ * adding and removing never allocates, except when the array is resized.
+ * iteration is front to back through a primitive iterator, so nextLong()
+ * does not box either.
+ *
+ */
+public class LongDeque implements Iterable<Long> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] items; // ring buffer, length always a power of two
+    private int head; // index of the first item
+    private int nodes;
+
+    public LongDeque() {
+        items = new long[MIN_CAPACITY];
+        head = 0;
+        nodes = 0;
+    }
+
+    // is the deque empty?
+    public boolean isEmpty() {
+        return nodes == 0;
+    }
+
+    // return the number of items on the deque
+    public int size() {
+        return nodes;
+    }
+
+    // add the item to the front
+    public void addFirst(long item) {
+        if (nodes == items.length) {
+            resize(items.length * 2);
+        }
+
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        nodes++;
+    }
+
+    // add the item to the back
+    public void addLast(long item) {
+        if (nodes == items.length) {
+            resize(items.length * 2);
+        }
+
+        items[(head + nodes) & (items.length - 1)] = item;
+        nodes++;
+    }
+
+    // remove and return the item from the front
+    public long removeFirst() {
+        if (nodes == 0) {
+            throw new NoSuchElementException("nothing in list to remove");
+        }
+
+        long item = items[head];
+        head = (head + 1) & (items.length - 1);
+        nodes--;
+
+        shrinkIfSparse();
+        return item;
+    }
+
+    // remove and return the item from the back
+    public long removeLast() {
+        if (nodes == 0) {
+            throw new NoSuchElementException("nothing in list to remove");
+        }
+
+        long item = items[(head + nodes - 1) & (items.length - 1)];
+        nodes--;
+
+        shrinkIfSparse();
+        return item;
+    }
+
+    // halve the array when it falls to a quarter full, never below the minimum
+    private void shrinkIfSparse() {
+        if (items.length > MIN_CAPACITY && nodes <= items.length / 4) {
+            resize(items.length / 2);
+        }
+    }
+
+    // copy the items, in order, to the start of a new array of the given power of two length
+    private void resize(int capacity) {
+        long[] resized = new long[capacity];
+
+        for (int i = 0; i < nodes; i++) {
+            resized[i] = items[(head + i) & (items.length - 1)];
+        }
+
+        items = resized;
+        head = 0;
+    }
+
+    // return an iterator over items in order from front to back
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new LongDequeIterator();
+    }
+
+    private class LongDequeIterator implements PrimitiveIterator.OfLong {
+
+        private int position = 0;
+
+        @Override
+        public boolean hasNext() {
+            return position < nodes;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("overrun end of list");
+            }
+            return items[(head + position++) & (items.length - 1)];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("removal of items during iteration is not implemented");
+        }
+
+    }
+
+    // unit testing, then a comparison of the heap used by 10 million items
+    // in a LongDeque and in a Deque<Long>
+    public static void main(String[] args) {
+        LongDeque d = new LongDeque();
+        System.out.println("is empty? " + d.isEmpty());
+        System.out.println("size: " + d.size());
+        d.addFirst(1);
+        d.addLast(2);
+        d.addFirst(3);
+        d.addLast(4);
+        System.out.println("is empty? " + d.isEmpty());
+        System.out.println("size: " + d.size());
+        System.out.println("remove first: " + d.removeFirst());
+        System.out.println("remove last: " + d.removeLast());
+
+        PrimitiveIterator.OfLong it = d.iterator();
+        while (it.hasNext()) {
+            System.out.println("iterate: " + it.nextLong());
+        }
+
+        int items = 10000000;
+
+        long before = usedMemory();
+        LongDeque primitive = new LongDeque();
+        for (int i = 0; i < items; i++) {
+            primitive.addLast(i);
+        }
+        long primitiveBytes = usedMemory() - before;
+
+        before = usedMemory();
+        Deque<Long> boxed = new Deque<>();
+        for (int i = 0; i < items; i++) {
+            boxed.addLast((long) i);
+        }
+        long boxedBytes = usedMemory() - before;
+
+        System.out.println(String.format("LongDeque:   %,d bytes, %.1f bytes/item", primitiveBytes, primitiveBytes / (double) primitive.size()));
+        System.out.println(String.format("Deque<Long>: %,d bytes, %.1f bytes/item", boxedBytes, boxedBytes / (double) boxed.size()));
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -1,6 +1,9 @@
 
 import edu.princeton.cs.algs4.StdRandom;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
@@ -11,6 +14,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 
     private Item[] rq;
     private int N;
+    private int modifications; // counts enqueues and dequeues, checked by iterators
 
     /**
      * Iterator. Each iterator must return the items in uniformly random order.
@@ -51,9 +55,6 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
      * tests do this and amend here to include null elements in relevant
      * iteration / for loop.
      *
-     * tests count too many calls to stdrandom -- amend so calls will be linear
-     * to n
-     *
      */
     // construct an empty randomized queue
     public RandomizedQueue() {
@@ -84,6 +85,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 
         // place item then move marker forward
         rq[N++] = item;
+        modifications++;
     }
 
 //     remove and return a random item
@@ -96,6 +98,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         // take last item from array to position r
         rq[r] = rq[--N];
         rq[N] = null;
+        modifications++;
 
         // resize by half if list becomes quarter full
         if (N + 1 == rq.length / 4) {
@@ -137,33 +140,35 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
     }
 
     /**
-     * nested class for construction of iterator object
+     * nested class for construction of iterator object.
+     *
+     * the order is an incremental fisher-yates shuffle, done one step per
+     * call to next(), so construction costs nothing and taking only the
+     * first k items costs O(k) time and O(k) calls to StdRandom. the shuffle
+     * works on indexes rather than the items. while few have been taken, the
+     * indexes which have moved are kept in a map; once a 64th of the queue
+     * has been taken they are moved into an int array, where a 0 entry means
+     * the index has not moved, and any other value v means the item at index
+     * v - 1 has been swapped there.
+     *
+     * the iterator reads the item array the queue held when it was created,
+     * so next() throws a ConcurrentModificationException once the queue has
+     * been enqueued to or dequeued from since then.
      */
     private class RandomIterator implements Iterator<Item> {
 
-        Item[] localRQ;
-        int position;
-        int length;
+        private final Item[] items;
+        private final int length;
+        private final int expectedModifications;
+        private Map<Integer, Integer> moved = new HashMap<>();
+        private int[] order;
+        private int position;
 
-        /**
-         * constructor creates new array only long enough to hold all non-null
-         * entries from list. list is cloned, completely dequeued to the new
-         * array, then reference to the clone is handed back to main list.
-         *
-         */
         public RandomIterator(int length) {
-            position = 0;
+            items = rq;
             this.length = length;
-            Item[] rqCopy = rq.clone();
-
-            localRQ = (Item[]) new Object[length];
-            for (int i = 0; i < length; i++) {
-                localRQ[i] = dequeue();
-            }
-
-            rq = rqCopy;
-            N = length;
-
+            expectedModifications = modifications;
+            position = 0;
         }
 
         @Override
@@ -176,7 +181,40 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
             if (!hasNext()) {
                 throw new NoSuchElementException("outside of collection range");
             }
-            return localRQ[position++];
+            if (modifications != expectedModifications) {
+                throw new ConcurrentModificationException("randomized queue changed during iteration");
+            }
+            if (order == null && position >= length / 64) {
+                order = new int[length];
+                for (Map.Entry<Integer, Integer> entry : moved.entrySet()) {
+                    order[entry.getKey()] = entry.getValue() + 1;
+                }
+                moved = null;
+            }
+
+            // swap a random index from the rest of the range into this position
+            int r = position + StdRandom.uniform(length - position);
+            int chosen = indexAt(r);
+            move(r, indexAt(position));
+            position++;
+
+            return items[chosen];
+        }
+
+        // the index of the item currently shuffled into slot i
+        private int indexAt(int i) {
+            if (order == null) {
+                return moved.getOrDefault(i, i);
+            }
+            return order[i] == 0 ? i : order[i] - 1;
+        }
+
+        private void move(int i, int index) {
+            if (order == null) {
+                moved.put(i, index);
+            } else {
+                order[i] = index + 1;
+            }
         }
 
         @Override
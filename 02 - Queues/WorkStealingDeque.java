@@ -0,0 +1,265 @@
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * a lock-free work-stealing deque (Chase and Lev). one thread, the owner,
+ * adds and removes items at the back as with a Deque used as a stack; any
+ * number of other threads may steal items from the front at the same time.
+ *
+ *
+ * the owner's addLast and removeLast take no lock and make no CAS at all,
+ * except when removing the very last item, where it may be racing a thief.
+ * thieves CAS the front index forward, so each item is taken exactly once.
+ *
+ * the items sit in a ring buffer indexed by two ever-increasing counters:
+ * 'top', the next item to steal, and 'bottom', one past the owner's end.
+ * the buffer doubles when full but never shrinks, and a stolen item's slot
+ * is only cleared when it is next overwritten.
+ *
+ */
+public class WorkStealingDeque<Item> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final AtomicLong top = new AtomicLong();
+    private volatile long bottom;
+    private volatile AtomicReferenceArray<Item> items = new AtomicReferenceArray<>(MIN_CAPACITY);
+
+    // is the deque empty? only a snapshot while other threads are working
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // the number of items on the deque, only a snapshot while other threads are working
+    public int size() {
+        long b = bottom;
+        long t = top.get();
+        return (int) Math.max(0, b - t);
+    }
+
+    // add the item to the back. owner thread only
+    public void addLast(Item item) {
+
+        if (item == null) {
+            throw new IllegalArgumentException("item given is null");
+        }
+
+        long b = bottom;
+        long t = top.get();
+        AtomicReferenceArray<Item> a = items;
+
+        if (b - t >= a.length()) {
+            a = grow(a, t, b);
+        }
+
+        a.set((int) b & (a.length() - 1), item);
+        bottom = b + 1; // publishes the item to thieves
+    }
+
+    // remove and return the item from the back. owner thread only
+    public Item removeLast() {
+
+        long b = bottom - 1;
+        AtomicReferenceArray<Item> a = items;
+
+        // claim the slot before looking at top: a thief reading bottom after
+        // this will not take it, and one that read it before shows up in top
+        bottom = b;
+        long t = top.get();
+
+        if (t > b) { // was already empty
+            bottom = b + 1;
+            throw new NoSuchElementException("nothing in list to remove");
+        }
+
+        int slot = (int) b & (a.length() - 1);
+        Item item = a.get(slot);
+
+        if (t < b) { // more than one item, so no thief can reach this one
+            a.set(slot, null);
+            return item;
+        }
+
+        // the last item: race any thief for it through top
+        boolean won = top.compareAndSet(t, t + 1);
+        bottom = b + 1;
+
+        if (!won) {
+            throw new NoSuchElementException("nothing in list to remove");
+        }
+        return item;
+    }
+
+    // remove and return the item from the front, or null if there is nothing to steal. any thread
+    public Item steal() {
+
+        while (true) {
+            long t = top.get();
+            long b = bottom;
+
+            if (t >= b) {
+                return null;
+            }
+
+            AtomicReferenceArray<Item> a = items;
+            Item item = a.get((int) t & (a.length() - 1));
+
+            if (top.compareAndSet(t, t + 1)) {
+                return item;
+            }
+            // lost to another thief or the owner, try the next item
+        }
+    }
+
+    // copy the items to a ring buffer twice the size. owner thread only
+    private AtomicReferenceArray<Item> grow(AtomicReferenceArray<Item> a, long t, long b) {
+        AtomicReferenceArray<Item> grown = new AtomicReferenceArray<>(a.length() * 2);
+
+        for (long i = t; i < b; i++) {
+            grown.set((int) i & (grown.length() - 1), a.get((int) i & (a.length() - 1)));
+        }
+
+        items = grown;
+        return grown;
+    }
+
+    /**
+     * unit testing, then a benchmark: one owner pushes items and takes back
+     * every other one while the other threads steal, against the same
+     * workload on a Deque shared through synchronized blocks.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        WorkStealingDeque<String> d = new WorkStealingDeque<>();
+        System.out.println("is empty? " + d.isEmpty());
+        d.addLast("one");
+        d.addLast("two");
+        d.addLast("three");
+        System.out.println("size: " + d.size());
+        System.out.println("steal: " + d.steal());
+        System.out.println("remove last: " + d.removeLast());
+        System.out.println("remove last: " + d.removeLast());
+        System.out.println("steal: " + d.steal());
+        System.out.println("is empty? " + d.isEmpty());
+
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        for (int thieves = 1; thieves <= Math.max(3, processors - 1); thieves *= 2) {
+            System.out.println(String.format("%2d thieves: work stealing %,.0f items/sec, synchronized Deque %,.0f items/sec",
+                    thieves, lockFree(items, thieves), locked(items, thieves)));
+        }
+    }
+
+    private static volatile boolean finished;
+
+    private static double lockFree(int items, int thieves) throws InterruptedException {
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+        long[] taken = new long[thieves + 1];
+        finished = false;
+
+        Thread[] workers = new Thread[thieves];
+        for (int w = 0; w < thieves; w++) {
+            int worker = w + 1;
+            workers[w] = new Thread(() -> {
+                long count = 0;
+                while (!finished || !deque.isEmpty()) {
+                    if (deque.steal() != null) {
+                        count++;
+                    }
+                }
+                taken[worker] = count;
+            });
+        }
+
+        long t = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+
+        long count = 0;
+        for (int i = 0; i < items; i++) {
+            deque.addLast(i);
+            if (i % 2 == 0) {
+                try {
+                    deque.removeLast();
+                    count++;
+                } catch (NoSuchElementException e) {
+                    // a thief got there first
+                }
+            }
+        }
+        finished = true;
+        taken[0] = count;
+
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return check(items, taken, System.nanoTime() - t);
+    }
+
+    private static double locked(int items, int thieves) throws InterruptedException {
+        Deque<Integer> deque = new Deque<>();
+        long[] taken = new long[thieves + 1];
+        finished = false;
+
+        Thread[] workers = new Thread[thieves];
+        for (int w = 0; w < thieves; w++) {
+            int worker = w + 1;
+            workers[w] = new Thread(() -> {
+                long count = 0;
+                while (true) {
+                    boolean done = finished;
+                    synchronized (deque) {
+                        if (!deque.isEmpty()) {
+                            deque.removeFirst();
+                            count++;
+                            continue;
+                        }
+                    }
+                    if (done) {
+                        break;
+                    }
+                }
+                taken[worker] = count;
+            });
+        }
+
+        long t = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+
+        long count = 0;
+        for (int i = 0; i < items; i++) {
+            synchronized (deque) {
+                deque.addLast(i);
+                if (i % 2 == 0 && !deque.isEmpty()) {
+                    deque.removeLast();
+                    count++;
+                }
+            }
+        }
+        finished = true;
+        taken[0] = count;
+
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return check(items, taken, System.nanoTime() - t);
+    }
+
+    // every item must have been taken exactly once; returns items per second
+    private static double check(int items, long[] taken, long nanos) {
+        long total = 0;
+        for (long count : taken) {
+            total += count;
+        }
+        if (total != items) {
+            throw new IllegalStateException(total + " items taken out of " + items);
+        }
+        return items * 1e9 / nanos;
+    }
+
+}